@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Diffs two JMH JSON result files (as written by the jmh profile to target/jmh-result.json)
+# and prints one row per benchmark and parameter set with the change between them.
+#
+# Needs: jq.
+#
+#   mvn -Pjmh test-compile exec:exec -Djmh.result=baseline.json
+#   ... upgrade / change ...
+#   mvn -Pjmh test-compile exec:exec -Djmh.result=current.json
+#   ./loadtest/compare-jmh.sh baseline.json current.json
+#
+# Positive change is always an improvement (more ops/s or less time per op). With
+# MAX_REGRESSION=10 the script exits 1 if any benchmark got more than 10% worse.
+set -euo pipefail
+
+if [[ $# -ne 2 ]]; then
+    echo "usage: $0 <baseline.json> <current.json>" >&2
+    exit 2
+fi
+
+MAX_REGRESSION=${MAX_REGRESSION:-}
+
+# "Benchmark.method param=value ..." -> {score, unit, mode}
+scores() {
+    jq -c '[.[] | {
+        key: ((.benchmark | sub("^com\\.example\\.carcircle\\.bench\\."; ""))
+              + ((.params // {}) | to_entries | map(" " + .key + "=" + .value) | join(""))),
+        score: .primaryMetric.score,
+        unit: .primaryMetric.scoreUnit,
+        mode: .mode
+    }] | map({(.key): .}) | add // {}' "$1"
+}
+
+report=$(jq -nr --argjson base "$(scores "$1")" --argjson cur "$(scores "$2")" --arg max "${MAX_REGRESSION}" '
+    def change($b; $c; $mode):
+        if $b == 0 then 0
+        elif $mode == "thrpt" then ($c - $b) / $b * 100
+        else ($b - $c) / $b * 100 end;
+    def num: . * 1000 | round / 1000 | tostring;
+    def pad($width): tostring | . + (" " * ([$width - length, 0] | max + 1) // "");
+    ([$base, $cur] | map(keys) | add | unique) as $keys
+    | ([$keys[] | length] + [9] | max) as $width
+    | (["BENCHMARK", "BASELINE", "CURRENT", "UNIT", "CHANGE"]),
+      ($keys[] as $k
+       | $base[$k] as $b | $cur[$k] as $c
+       | if $b == null then [$k, "-", ($c.score | num), $c.unit, "new"]
+         elif $c == null then [$k, ($b.score | num), "-", $b.unit, "removed"]
+         else change($b.score; $c.score; $b.mode) as $pct
+              | [$k, ($b.score | num), ($c.score | num), $c.unit,
+                 ((if $pct >= 0 then "+" else "" end) + ($pct * 10 | round / 10 | tostring) + "%")
+                 + (if $max != "" and $pct < -($max | tonumber) then "  REGRESSION" else "" end)]
+         end)
+    | "\(.[0] | pad($width)) \(.[1] | pad(14)) \(.[2] | pad(14)) \(.[3] | pad(8)) \(.[4])"
+')
+
+echo "${report}"
+if grep -q REGRESSION <<<"${report}"; then
+    exit 1
+fi
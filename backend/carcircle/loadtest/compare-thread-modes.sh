@@ -0,0 +1,72 @@
+#!/usr/bin/env bash
+# Runs the same HTTP load against the backend in platform-thread and virtual-thread mode
+# and prints the hey summaries side by side, plus the pinning report from virtual mode.
+#
+# Needs: JDK 21, a running MongoDB with some data, and hey (https://github.com/rakyll/hey).
+#
+#   ./loadtest/compare-thread-modes.sh                    # defaults below
+#   DURATION=60s CONCURRENCY=800 ./loadtest/compare-thread-modes.sh
+#
+# TOMCAT_THREADS caps the platform pool so the difference shows at modest concurrency.
+# Set SLOW_URL to an endpoint that blocks on I/O (e.g. the LLM proxy) to mix in slow calls.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT=${PORT:-8091}
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-400}
+TOMCAT_THREADS=${TOMCAT_THREADS:-200}
+BASE="http://localhost:${PORT}"
+URLS=(
+    "${BASE}/api/cars"
+    "${BASE}/api/bookings/page?limit=50"
+    "${BASE}/api/dashboard/admin"
+    "${BASE}/api/messages/unread-count?role=admin"
+)
+if [[ -n "${SLOW_URL:-}" ]]; then
+    URLS+=("${SLOW_URL}")
+fi
+OUT=${OUT:-target/loadtest}
+
+command -v hey >/dev/null || { echo "hey not found on PATH" >&2; exit 1; }
+mkdir -p "$OUT"
+
+./mvnw -B -q -DskipTests package
+JAR=$(ls target/carcircle-*.jar | head -n 1)
+
+run_mode() {
+    local mode=$1 virtual=$2
+    echo "=== ${mode} threads ==="
+    java -jar "$JAR" \
+        --server.port="$PORT" \
+        --spring.threads.virtual.enabled="$virtual" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        > "$OUT/${mode}-server.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" EXIT
+
+    for _ in $(seq 1 60); do
+        curl -sf "${BASE}/api/runtime/threads" >/dev/null && break
+        sleep 1
+    done
+
+    for url in "${URLS[@]}"; do
+        # Warm up the JIT and caches before measuring
+        hey -z 5s -c 50 "$url" >/dev/null
+        echo "--- ${url}"
+        hey -z "$DURATION" -c "$CONCURRENCY" "$url" | tee -a "$OUT/${mode}.txt" \
+            | grep -E "Requests/sec|Average|Slowest|99% in|\[[0-9]{3}\]"
+    done
+    curl -s "${BASE}/api/runtime/threads" > "$OUT/${mode}-threads.json"
+    echo "threads: $(cat "$OUT/${mode}-threads.json")"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo "Full reports in $OUT/"
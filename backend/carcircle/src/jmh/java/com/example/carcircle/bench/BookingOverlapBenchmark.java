@@ -0,0 +1,107 @@
+package com.example.carcircle.bench;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.service.BookingAvailabilityIndex;
+
+// Overlap checks against the in-memory availability index, loaded with a year of bookings:
+// the reservation every booking write goes through, a single-car check and the fleet scan
+// behind GET /api/vehicles/available.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookingOverlapBenchmark {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    @Param({"1000", "100000"})
+    public int bookings;
+
+    private BookingAvailabilityIndex index;
+    private int fleet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fleet = Math.max(10, bookings / 50);
+        List<Car> cars = new ArrayList<>(fleet);
+        for (int i = 0; i < fleet; i++) {
+            cars.add(new Car("car-" + i, "Honda", "City", 2022, 1500));
+        }
+        List<Booking> active = new ArrayList<>(bookings);
+        for (Booking booking : Fixtures.bookings(bookings, fleet)) {
+            if (BookingAvailabilityIndex.BLOCKING_STATUSES.contains(booking.getStatus())) {
+                active.add(booking);
+            }
+        }
+        BookingRepository bookingRepo = mock(BookingRepository.class);
+        CarRepository carRepo = mock(CarRepository.class);
+        when(carRepo.streamAllBy()).thenAnswer(invocation -> cars.stream());
+        when(bookingRepo.streamByStatusIn(any())).thenAnswer(invocation -> active.stream());
+        index = new BookingAvailabilityIndex(bookingRepo, carRepo);
+        index.load();
+    }
+
+    // A slot that is free stays reserved only for the call, so the schedules keep their size
+    @Benchmark
+    @Threads(4)
+    public String tryReserve(ThreadState state) {
+        Instant start = Fixtures.FIRST_DAY.plus(state.random.nextInt(365), ChronoUnit.DAYS);
+        Booking booking = new Booking(state.bookingId, "car-" + state.random.nextInt(fleet), "user-1", start,
+                start.plus(1 + state.random.nextInt(7), ChronoUnit.DAYS), "Pending", 0, "Pune", null);
+        String conflict = index.tryReserve(booking);
+        if (conflict == null) {
+            index.release(state.bookingId);
+        }
+        return conflict;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isAvailable(ThreadState state) {
+        long from = Fixtures.FIRST_DAY.toEpochMilli() + state.random.nextInt(365) * DAY_MILLIS;
+        return index.isAvailable("car-" + state.random.nextInt(fleet), from, from + 3 * DAY_MILLIS);
+    }
+
+    @Benchmark
+    public List<Car> availableCars(ThreadState state) {
+        long from = Fixtures.FIRST_DAY.toEpochMilli() + state.random.nextInt(365) * DAY_MILLIS;
+        return index.availableCars(from, from + 3 * DAY_MILLIS);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+        final String bookingId = "bench-" + THREADS.incrementAndGet();
+    }
+}
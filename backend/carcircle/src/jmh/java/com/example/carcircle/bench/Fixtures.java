@@ -0,0 +1,65 @@
+package com.example.carcircle.bench;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.carcircle.config.JacksonConfig;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Shared test data for the benchmarks: seeded, so every run and every release sees the same rows.
+final class Fixtures {
+    static final Instant FIRST_DAY = Instant.parse("2025-01-01T00:00:00Z");
+    static final String[] STATUSES = {"Pending", "Confirmed", "Active", "Completed", "Cancelled"};
+    static final String[] ROLES = {"admin", "customer", "mechanic"};
+
+    private Fixtures() {}
+
+    // The mapper Spring Boot builds for the controllers: Boot's date default plus our customizer
+    static ObjectMapper objectMapper() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        new JacksonConfig().lenientInstants().customize(builder);
+        return builder.build();
+    }
+
+    // A valid ObjectId hex string, so seeded rows are stored the way the app stores its own ids
+    static String objectId(int i) {
+        return String.format("%024x", i);
+    }
+
+    static List<Booking> bookings(int count, int cars) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Instant start = FIRST_DAY.plus(random.nextInt(365), ChronoUnit.DAYS);
+            Booking booking = new Booking(objectId(i), "car-" + random.nextInt(cars), "user-" + random.nextInt(1000), start,
+                    start.plus(1 + random.nextInt(10), ChronoUnit.DAYS), STATUSES[random.nextInt(STATUSES.length)],
+                    1500 + random.nextInt(20000), "Pune", "user" + i + "@example.com");
+            booking.setCreatedAt(start.minus(random.nextInt(30), ChronoUnit.DAYS));
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    static List<Message> messages(int count, int users) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Message message = new Message(objectId(i), "user-" + random.nextInt(users), "user-" + random.nextInt(users),
+                    "Is the car available for pickup at " + (8 + random.nextInt(10)) + ":00 tomorrow?");
+            message.setTimestamp(FIRST_DAY.plusSeconds(random.nextInt(365 * 86400)));
+            message.setRead(random.nextBoolean());
+            message.setConversationKey(Message.conversationKeyOf(message.getSenderId(), message.getReceiverId()));
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.carcircle.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.carcircle.controller.MessageController;
+import com.example.carcircle.model.Message;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+// POST /api/messages up to the save: reading the request body and normalizing it, for
+// both the senderId/receiverId body and the from/to body the newer screens send.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageNormalizationBenchmark {
+    @Param({"legacy", "fromTo"})
+    public String format;
+
+    private ObjectReader reader;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        reader = Fixtures.objectMapper().readerFor(Message.class);
+        String json = "legacy".equals(format)
+                ? "{\"senderId\":\"user-12\",\"receiverId\":\"user-7\",\"message\":\"Is the car ready?\"}"
+                : "{\"from\":\"user-12\",\"fromRole\":\"customer\",\"to\":\"all\",\"toRole\":\"Admin\","
+                        + "\"subject\":\"Pickup\",\"content\":\"Is the car ready?\",\"timestamp\":\"2025-03-01\"}";
+        body = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Message readAndNormalize() throws IOException {
+        return MessageController.normalize(reader.readValue(body));
+    }
+}
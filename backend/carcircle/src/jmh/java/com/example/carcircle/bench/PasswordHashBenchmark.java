@@ -0,0 +1,83 @@
+package com.example.carcircle.bench;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.carcircle.auth.PasswordHasher;
+import com.example.carcircle.auth.TokenService;
+import com.example.carcircle.auth.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Cost of one bcrypt hash per strength, and how many logins per second the bounded
+// hashing pool sustains with many concurrent callers (the login path minus Mongo).
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PasswordHashBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"8", "10", "12"})
+    public int strength;
+
+    private PasswordHasher hasher;
+    private TokenService tokens;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Queue sized so the benchmark threads never hit the 503 path
+        hasher = new PasswordHasher(strength, 0, 1024);
+        tokens = new TokenService("benchmark-secret", Duration.ofHours(1), new ObjectMapper());
+        user = new User("64b7f0c2a1b2c3d4e5f60718", "bench", "bench@example.com",
+                hasher.hash(PASSWORD).join(), "customer");
+        token = tokens.issue(user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String hash() {
+        return hasher.hash(PASSWORD).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public String login() {
+        if (!hasher.matches(PASSWORD, user.getPassword()).join()) {
+            throw new IllegalStateException("password should match");
+        }
+        return tokens.issue(user);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    public Object verifyToken() {
+        return tokens.verify(token).orElseThrow();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.carcircle.bench;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.service.PricingEngine;
+
+// Quotes per second from the occupancy histogram, for a fleet with a year of bookings.
+// A quote's cost should track the rental length, not the number of bookings.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PricingBenchmark {
+    private static final Instant FIRST_DAY = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Param({"2", "14", "60"})
+    public int rentalDays;
+
+    @Param({"1000", "100000"})
+    public int bookings;
+
+    private PricingEngine engine;
+    private Car car;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PricingEngine(null, null, 0.6, 0.5, "7:0.10,30:0.25", 365);
+        int fleet = Math.max(10, bookings / 50);
+        for (int i = 0; i < fleet; i++) {
+            engine.carAdded("car-" + i);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < bookings; i++) {
+            Instant start = FIRST_DAY.plus(random.nextInt(365), ChronoUnit.DAYS);
+            engine.apply(new Booking("b-" + i, "car-" + random.nextInt(fleet), "user-1", start,
+                    start.plus(1 + random.nextInt(10), ChronoUnit.DAYS), "Confirmed", 0, "Pune", null));
+        }
+        car = new Car("car-0", "Honda", "City", 2022, 1500);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public PricingEngine.Quote quote(ThreadState state) {
+        Instant start = FIRST_DAY.plus(state.random.nextInt(300), ChronoUnit.DAYS);
+        return engine.quote(car, start, start.plus(rentalDays, ChronoUnit.DAYS), null);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.carcircle.bench;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.carcircle.auth.TokenService;
+import com.example.carcircle.config.RateLimitFilter;
+import com.example.carcircle.service.RateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+// Per-request cost of RateLimitFilter on a throttled route, spread over `callers` client
+// addresses, next to a route it does not throttle and the bare bucket. The limits are set
+// high enough that every request is let through, which is the path normal traffic takes.
+// Add -t N to see CAS contention between threads sharing hot buckets.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimitBenchmark {
+    private static final FilterChain PASS = (request, response) -> {};
+
+    @Param({"100", "100000"})
+    public int callers;
+
+    private RateLimitFilter filter;
+    private RateLimiter limiter;
+    private String[] addresses;
+
+    @Setup
+    public void setUp() {
+        TokenService tokens = new TokenService("bench-secret", Duration.ofHours(1), Fixtures.objectMapper());
+        filter = new RateLimitFilter(tokens, new SimpleMeterRegistry(), true,
+                "POST /api/messages=1000000000/PT1S");
+        limiter = new RateLimiter(1_000_000_000, Duration.ofSeconds(1));
+        addresses = new String[callers];
+        for (int i = 0; i < callers; i++) {
+            addresses[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+        }
+    }
+
+    @Benchmark
+    public int throttledRoute(ThreadState state) throws ServletException, IOException {
+        state.message.setRemoteAddr(addresses[state.random.nextInt(callers)]);
+        filter.doFilter(state.message, state.response, PASS);
+        return state.response.getStatus();
+    }
+
+    @Benchmark
+    public int unthrottledRoute(ThreadState state) throws ServletException, IOException {
+        filter.doFilter(state.list, state.response, PASS);
+        return state.response.getStatus();
+    }
+
+    @Benchmark
+    public long bucketOnly(ThreadState state) {
+        return limiter.tryAcquire(addresses[state.random.nextInt(callers)]);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+        final MockHttpServletRequest message = new MockHttpServletRequest("POST", "/api/messages");
+        final MockHttpServletRequest list = new MockHttpServletRequest("GET", "/api/cars");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+    }
+}
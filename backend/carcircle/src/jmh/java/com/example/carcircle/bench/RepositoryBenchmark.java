@@ -0,0 +1,131 @@
+package com.example.carcircle.bench;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.example.carcircle.CarcircleApplication;
+import com.example.carcircle.config.MongoIndexInitializer;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingFilter;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Message;
+import com.example.carcircle.model.MessageRepository;
+import com.example.carcircle.service.BookingAvailabilityIndex;
+
+// The repository calls behind the busiest endpoints, run through the real Spring Data stack
+// against a throwaway database. There is no embedded Mongo on the classpath, so this needs a
+// mongod: BENCH_MONGO_URI (default mongodb://localhost:27017) and BENCH_MONGO_DB (default
+// carcircle_bench), which is dropped and reseeded at the start of each trial.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+    private static final int CARS = 200;
+    private static final int USERS = 500;
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepo;
+    private MessageRepository messageRepo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String uri = System.getenv().getOrDefault("BENCH_MONGO_URI", "mongodb://localhost:27017");
+        String database = System.getenv().getOrDefault("BENCH_MONGO_DB", "carcircle_bench");
+        context = new SpringApplicationBuilder(CarcircleApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.data.mongodb.uri=" + uri, "spring.data.mongodb.database=" + database,
+                        "carcircle.profiler.enabled=false")
+                .run();
+        bookingRepo = context.getBean(BookingRepository.class);
+        messageRepo = context.getBean(MessageRepository.class);
+
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.dropCollection(Booking.class);
+        mongoTemplate.dropCollection(Message.class);
+        context.getBean(MongoIndexInitializer.class).ensureIndexes();
+        seed(mongoTemplate, Booking.class, Fixtures.bookings(rows, CARS));
+        seed(mongoTemplate, Message.class, Fixtures.messages(rows, USERS));
+    }
+
+    private static <T> void seed(MongoTemplate mongoTemplate, Class<T> type, List<T> documents) {
+        for (int from = 0; from < documents.size(); from += 1000) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type)
+                    .insert(documents.subList(from, Math.min(from + 1000, documents.size())))
+                    .execute();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking bookingById(ThreadState state) {
+        return bookingRepo.findById(Fixtures.objectId(state.random.nextInt(rows))).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Booking> bookingFirstPage() {
+        return bookingRepo.findPage(new BookingFilter(), null, 50);
+    }
+
+    @Benchmark
+    public List<Booking> bookingPageByStatus() {
+        return bookingRepo.findPage(new BookingFilter("Confirmed", null, null), null, 50);
+    }
+
+    // What the availability index reads when it checks a car before it has loaded
+    @Benchmark
+    public List<Booking> carSchedule(ThreadState state) {
+        try (Stream<Booking> bookings = bookingRepo.streamByCarIdAndStatusIn(
+                "car-" + state.random.nextInt(CARS), BookingAvailabilityIndex.BLOCKING_STATUSES)) {
+            return bookings.collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public List<Message> inbox(ThreadState state) {
+        return messageRepo.findInbox("user-" + state.random.nextInt(USERS), "customer");
+    }
+
+    @Benchmark
+    public List<Message> conversationPage(ThreadState state) {
+        String key = Message.conversationKeyOf("user-" + state.random.nextInt(USERS),
+                "user-" + state.random.nextInt(USERS));
+        return messageRepo.findConversationPage(key, null, 50);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.carcircle.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.carcircle.controller.JsonStreams;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Time to write a large List<Booking>/List<Message> response body, once buffered the way a
+// plain controller return value is and once through JsonStreams as the export endpoints do.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private ObjectMapper mapper;
+    private List<Booking> bookings;
+    private List<Message> messages;
+
+    @Setup
+    public void setUp() {
+        mapper = Fixtures.objectMapper();
+        bookings = Fixtures.bookings(rows, 200);
+        messages = Fixtures.messages(rows, 500);
+    }
+
+    @Benchmark
+    public byte[] bookingsBuffered() throws IOException {
+        return mapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public long bookingsStreamed() throws IOException {
+        CountingStream out = new CountingStream();
+        JsonStreams.array(mapper, bookings::stream).writeTo(out);
+        return out.bytes;
+    }
+
+    @Benchmark
+    public byte[] messagesBuffered() throws IOException {
+        return mapper.writeValueAsBytes(messages);
+    }
+
+    @Benchmark
+    public long messagesStreamed() throws IOException {
+        CountingStream out = new CountingStream();
+        JsonStreams.array(mapper, messages::stream).writeTo(out);
+        return out.bytes;
+    }
+
+    // Stands in for the servlet response; counting keeps the writes from being optimised away
+    static final class CountingStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -1,47 +1,105 @@
 package com.example.carcircle.auth;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.PartialUpdater;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+    private static final Set<String> PATCHABLE = Set.of("username", "email", "password", "role");
+
     @Autowired
     private UserRepository userRepo;
+    @Autowired
+    private PartialUpdater partialUpdater;
+    @Autowired
+    private EntityCache<User> userCache;
+    @Autowired
+    private EntityCache<String> userIdsByEmail;
+    @Autowired
+    private PasswordHasher passwordHasher;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private SessionStore sessionStore;
+    // Mongo work that follows a hash runs here, keeping the bounded bcrypt pool for bcrypt
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor requestExecutor;
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> req) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody Map<String, String> req) {
         String email = req.get("email");
         String username = req.getOrDefault("username", email);
         String password = req.get("password");
         String role = req.getOrDefault("role", "customer");
         if (email == null || password == null) {
-            return ResponseEntity.badRequest().body("Email and password are required");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Email and password are required"));
         }
         if (userRepo.existsByEmail(email)) {
-            return ResponseEntity.badRequest().body("Email already registered");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Email already registered"));
         }
-        User newUser = new User(null, username, email, password, role);
-        userRepo.save(newUser);
-        return ResponseEntity.ok(Map.of(
-                "id", newUser.getId(),
-                "email", newUser.getEmail(),
-                "username", newUser.getUsername(),
-                "role", newUser.getRole()
-        ));
+        return passwordHasher.hash(password).thenApplyAsync(hash -> {
+            User newUser = new User(null, username, email, hash, role);
+            try {
+                userRepo.save(newUser);
+            } catch (DuplicateKeyException e) {
+                // Lost a race with a concurrent registration; the unique email index rejected this one
+                return ResponseEntity.badRequest().body("Email already registered");
+            }
+            return ResponseEntity.ok(Map.of(
+                    "id", newUser.getId(),
+                    "email", newUser.getEmail(),
+                    "username", newUser.getUsername(),
+                    "role", newUser.getRole()
+            ));
+        }, requestExecutor);
     }
 
+    // The bcrypt check runs on PasswordHasher's pool, so the request thread is released while it hashes
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> req) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> req) {
         String email = req.get("email");
         String password = req.get("password");
-        User user = userRepo.findByEmail(email);
-        if (user != null && user.getPassword().equals(password)) {
-            String token = java.util.Base64.getEncoder().encodeToString((email + ":mocktoken").getBytes());
+        User user = findByEmail(email);
+        if (user == null) {
+            return passwordHasher.matchesNone(password)
+                    .<ResponseEntity<?>>thenApply(matched -> ResponseEntity.status(401).body("Invalid email or password"));
+        }
+        return passwordHasher.matches(password, user.getPassword()).thenApplyAsync(matched -> {
+            if (!matched) {
+                return ResponseEntity.status(401).body("Invalid email or password");
+            }
+            if (!passwordHasher.isHashed(user.getPassword())) {
+                upgradeLegacyPassword(user, password);
+            }
+            String token = tokenService.issue(user);
+            try {
+                sessionStore.open(token, user);
+            } catch (DataAccessException e) {
+                // The session is opened on first use instead
+                log.warn("Could not open session for user {}: {}", user.getId(), e.getMessage());
+            }
             return ResponseEntity.ok(Map.of(
                     "token", token,
                     "email", user.getEmail(),
@@ -49,8 +107,46 @@ public class AuthController {
                     "username", user.getUsername(),
                     "id", user.getId()
             ));
-        } else {
-            return ResponseEntity.status(401).body("Invalid email or password");
+        }, requestExecutor);
+    }
+
+    // Checks the signature and expiry only; no database read
+    @GetMapping("/me")
+    public ResponseEntity<?> currentToken(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        return tokenService.verifyHeader(authorization)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(401).body("Invalid or expired token"));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        sessionStore.close(authorization);
+        return ResponseEntity.ok().build();
+    }
+
+    // email -> id is cached separately from id -> user; a user whose email has since
+    // changed no longer matches and is treated as not found
+    private User findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return userIdsByEmail.get(email, e -> Optional.ofNullable(userRepo.findByEmail(e)).map(User::getId))
+                .flatMap(id -> userCache.get(id, userRepo::findById))
+                .filter(u -> email.equals(u.getEmail()))
+                .orElse(null);
+    }
+
+    private void upgradeLegacyPassword(User user, String password) {
+        try {
+            passwordHasher.hash(password)
+                    .thenAcceptAsync(hash -> partialUpdater.patch(User.class, user.getId(), Map.of("password", hash),
+                            Set.of("password"), null, Map.of()), requestExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Could not rehash legacy password for user {}", user.getId(), e);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated; the plaintext stays and is upgraded on a later login
         }
     }
 
@@ -62,16 +158,52 @@ public class AuthController {
 
     @GetMapping("/users/{id}")
     public ResponseEntity<?> getUser(@PathVariable String id) {
-        return userRepo.findById(id)
+        return userCache.get(id, userRepo::findById)
             .<ResponseEntity<?>>map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/users/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable String id, @RequestBody User update) {
-        update.setId(id);
-        userRepo.save(update);
-        return ResponseEntity.ok(update);
+    public CompletableFuture<ResponseEntity<?>> updateUser(@PathVariable String id, @RequestBody User update) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("username", update.getUsername());
+        fields.put("email", update.getEmail());
+        fields.put("password", update.getPassword());
+        fields.put("role", update.getRole());
+        return hashPassword(fields).thenApplyAsync(f -> patchUser(id, f, update.getVersion()), requestExecutor);
+    }
+
+    @PatchMapping("/users/{id}")
+    public CompletableFuture<ResponseEntity<?>> patchUserFields(@PathVariable String id,
+                                                               @RequestBody Map<String, Object> fields) {
+        Long expectedVersion;
+        try {
+            expectedVersion = PartialUpdater.expectedVersion(fields);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+        return hashPassword(fields).thenApplyAsync(f -> patchUser(id, f, expectedVersion), requestExecutor);
+    }
+
+    private ResponseEntity<?> patchUser(String id, Map<String, Object> fields, Long expectedVersion) {
+        try {
+            return partialUpdater.patch(User.class, id, fields, PATCHABLE, expectedVersion, Map.of())
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Values that are already bcrypt hashes (e.g. echoed back by an edit form) are kept as-is
+    private CompletableFuture<Map<String, Object>> hashPassword(Map<String, Object> fields) {
+        if (fields.get("password") instanceof String raw && !passwordHasher.isHashed(raw)) {
+            return passwordHasher.hash(raw).thenApply(hash -> {
+                fields.put("password", hash);
+                return fields;
+            });
+        }
+        return CompletableFuture.completedFuture(fields);
     }
 
     @DeleteMapping("/users/{id}")
@@ -81,8 +213,14 @@ public class AuthController {
     }
 
     @PostMapping("/users")
-    public ResponseEntity<User> createUser(@RequestBody User user) {
-        User saved = userRepo.save(user);
-        return ResponseEntity.ok(saved);
+    public CompletableFuture<ResponseEntity<User>> createUser(@RequestBody User user) {
+        CompletableFuture<User> hashed = CompletableFuture.completedFuture(user);
+        if (user.getPassword() != null && !passwordHasher.isHashed(user.getPassword())) {
+            hashed = passwordHasher.hash(user.getPassword()).thenApply(hash -> {
+                user.setPassword(hash);
+                return user;
+            });
+        }
+        return hashed.thenApplyAsync(u -> ResponseEntity.ok(userRepo.save(u)), requestExecutor);
     }
 }
@@ -0,0 +1,86 @@
+package com.example.carcircle.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+// Runs bcrypt off the request threads on a small fixed pool with a bounded queue.
+// When the queue is full, submissions fail fast with RejectedExecutionException
+// (mapped to 503 by ApiExceptionHandler) instead of piling up behind Tomcat.
+@Component
+public class PasswordHasher {
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./A-Za-z0-9]{53}$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    // Hash of nothing anyone knows, at the configured strength, for checks against unknown accounts
+    private final String decoyHash;
+
+    public PasswordHasher(@Value("${carcircle.auth.bcrypt-strength:10}") int strength,
+                          @Value("${carcircle.auth.hash-threads:0}") int threads,
+                          @Value("${carcircle.auth.hash-queue-capacity:64}") int queueCapacity) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.decoyHash = encoder.encode(UUID.randomUUID().toString());
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<String> hash(String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> encoder.encode(rawPassword), executor);
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String stored) {
+        if (rawPassword == null || stored == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (!isHashed(stored)) {
+            // Accounts created before hashing still hold plaintext until their next login
+            return CompletableFuture.completedFuture(MessageDigest.isEqual(
+                    rawPassword.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8)));
+        }
+        return CompletableFuture.supplyAsync(() -> encoder.matches(rawPassword, stored), executor);
+    }
+
+    // Spends the same bcrypt work as a real check and answers false, so a login for an
+    // unknown email takes as long as one with a wrong password
+    public CompletableFuture<Boolean> matchesNone(String rawPassword) {
+        String raw = rawPassword == null ? "" : rawPassword;
+        return CompletableFuture.supplyAsync(() -> {
+            encoder.matches(raw, decoyHash);
+            return false;
+        }, executor);
+    }
+
+    public boolean isHashed(String stored) {
+        return stored != null && BCRYPT.matcher(stored).matches();
+    }
+
+    public int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.carcircle.auth;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One signed-in token. The id is the SHA-256 of the token, so the collection never holds a
+// usable credential; Mongo drops the document once the token has expired.
+@Document(collection = "sessions")
+public class Session {
+    @Id
+    private String id;
+    @Version
+    private Long version;
+    // Closing every session of a deleted user
+    @Indexed(name = "user")
+    private String userId;
+    // Profile as the token's owner last saved it; kept flat rather than as an embedded User so
+    // User's unique email index is not declared again on sessions
+    private String username;
+    private String email;
+    private String role;
+    private Instant createdAt;
+    @Indexed(name = "expires_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+    // Logged out: kept until the token expires so the token cannot open a new session
+    private boolean closed;
+
+    public Session() {}
+
+    public Session(String id, User profile, Instant createdAt, Instant expiresAt) {
+        this.id = id;
+        this.userId = profile.getId();
+        this.username = profile.getUsername();
+        this.email = profile.getEmail();
+        this.role = profile.getRole();
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+    public boolean isClosed() { return closed; }
+    public void setClosed(boolean closed) { this.closed = closed; }
+
+    // What /api/user/profile returns; never carries a password
+    public User profile() {
+        return new User(userId, username, email, null, role);
+    }
+}
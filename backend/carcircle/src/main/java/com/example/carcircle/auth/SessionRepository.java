@@ -0,0 +1,7 @@
+package com.example.carcircle.auth;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface SessionRepository extends MongoRepository<Session, String> {
+    long deleteByUserId(String userId);
+}
@@ -0,0 +1,171 @@
+package com.example.carcircle.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.MongoEvents;
+
+// Per-token sessions: the profile a signed-in token sees, shared by every app node through the
+// sessions collection and served from the sessionCache LRU in front of it. The token's
+// signature and expiry are checked first, so a forged or expired token never reaches Mongo.
+// Logout leaves a closed session behind until the token expires, which is what revokes it.
+// A node sees another node's logout or profile change once its cached copy expires
+// (carcircle.cache.sessions.ttl).
+@Component
+public class SessionStore {
+    private final TokenService tokenService;
+    private final SessionRepository sessionRepo;
+    private final UserRepository userRepo;
+    private final MongoTemplate mongoTemplate;
+    private final EntityCache<Session> sessionCache;
+    private final EntityCache<User> userCache;
+
+    public SessionStore(TokenService tokenService, SessionRepository sessionRepo, UserRepository userRepo,
+                        MongoTemplate mongoTemplate, EntityCache<Session> sessionCache, EntityCache<User> userCache) {
+        this.tokenService = tokenService;
+        this.sessionRepo = sessionRepo;
+        this.userRepo = userRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.sessionCache = sessionCache;
+        this.userCache = userCache;
+    }
+
+    // Called at login with the token just issued
+    public Session open(String token, User user) {
+        Map<String, Object> claims = tokenService.verify(token)
+                .orElseThrow(() -> new IllegalArgumentException("Cannot open a session for an invalid token"));
+        Session session = new Session(idOf(token), user, Instant.now(), expiryOf(claims));
+        Session saved = sessionRepo.save(session);
+        sessionCache.put(saved.getId(), saved);
+        return saved;
+    }
+
+    public Optional<Session> find(String authorization) {
+        String token = TokenService.bearerToken(authorization);
+        Optional<Map<String, Object>> claims = tokenService.verify(token);
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Session> session = sessionCache.get(idOf(token), sessionRepo::findById);
+        if (session.isPresent()) {
+            return session.filter(s -> !s.isClosed())
+                    .filter(s -> s.getExpiresAt() == null || s.getExpiresAt().isAfter(Instant.now()));
+        }
+        // A valid token that never had a session, e.g. issued before sessions existed; the user
+        // must still exist for it to count. A logged-out token finds its closed session above.
+        Object userId = claims.get().get("sub");
+        return userId instanceof String id
+                ? userCache.get(id, userRepo::findById).map(user -> open(token, user))
+                : Optional.empty();
+    }
+
+    // Saved to the user, so the edit outlives this token; the id and role are not editable here.
+    // Throws OptimisticLockingFailureException when the user changed since it was read.
+    public Optional<Session> updateProfile(String authorization, User profile) {
+        return find(authorization).flatMap(current -> userRepo.findById(current.getUserId()).map(user -> {
+            user.setUsername(profile.getUsername());
+            user.setEmail(profile.getEmail());
+            User saved;
+            try {
+                saved = userRepo.save(user);
+            } catch (DuplicateKeyException e) {
+                throw new IllegalArgumentException("Email already registered");
+            }
+            // The save refreshed every session of the user; this one is returned as saved
+            Session updated = new Session(current.getId(), saved, current.getCreatedAt(), current.getExpiresAt());
+            updated.setVersion(current.getVersion());
+            sessionCache.put(updated.getId(), updated);
+            return updated;
+        }));
+    }
+
+    public boolean close(String authorization) {
+        String token = TokenService.bearerToken(authorization);
+        Optional<Map<String, Object>> claims = tokenService.verify(token);
+        if (claims.isEmpty()) {
+            // Expired or forged: nothing left to revoke
+            return false;
+        }
+        String id = idOf(token);
+        Instant expiresAt = expiryOf(claims.get());
+        Object userId = claims.get().get("sub");
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(id)),
+                new Update().set("closed", true).set("userId", userId).set("expiresAt", expiresAt).inc("version", 1),
+                Session.class);
+        Session closed = new Session();
+        closed.setId(id);
+        closed.setUserId(userId instanceof String s ? s : null);
+        closed.setExpiresAt(expiresAt);
+        closed.setClosed(true);
+        sessionCache.put(id, closed);
+        return true;
+    }
+
+    // Copies a saved user's profile into its open sessions, whichever node or endpoint saved it
+    void profileChanged(User user) {
+        Query open = Query.query(Criteria.where("userId").is(user.getId()).and("closed").ne(true));
+        Update profile = new Update().set("username", user.getUsername()).set("email", user.getEmail())
+                .set("role", user.getRole()).inc("version", 1);
+        if (mongoTemplate.updateMulti(open, profile, Session.class).getModifiedCount() > 0) {
+            // The cache is keyed by token, so it cannot be purged per user
+            sessionCache.invalidateAll();
+        }
+    }
+
+    void closeAllFor(String userId) {
+        if (sessionRepo.deleteByUserId(userId) > 0) {
+            sessionCache.invalidateAll();
+        }
+    }
+
+    private static Instant expiryOf(Map<String, Object> claims) {
+        return claims.get("exp") instanceof Number exp ? Instant.ofEpochSecond(exp.longValue()) : null;
+    }
+
+    static String idOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Component
+    static class UserEvents extends AbstractMongoEventListener<User> {
+        private final SessionStore store;
+
+        UserEvents(SessionStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<User> event) {
+            store.profileChanged(event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<User> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                store.closeAllFor(id);
+            }
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.carcircle.auth;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "users")
 public class User {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String username;
+    // Login lookups, and the guarantee behind the existsByEmail check in register
+    @Indexed(name = "email_unique", unique = true)
     private String email;
     private String password;
+    // Mechanic roster for MaintenanceDispatcher
+    @Indexed(name = "role")
     private String role;
 
     public User() {}
@@ -24,6 +32,8 @@ public class User {
 
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     public String getEmail() { return email; }
@@ -1,8 +1,11 @@
 package com.example.carcircle.auth;
 
+import java.util.List;
+
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface UserRepository extends MongoRepository<User, String> {
     User findByEmail(String email);
     boolean existsByEmail(String email);
+    List<User> findByRole(String role);
 }
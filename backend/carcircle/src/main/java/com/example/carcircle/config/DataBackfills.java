@@ -0,0 +1,59 @@
+package com.example.carcircle.config;
+
+import com.example.carcircle.auth.User;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Idempotent fix-ups for documents written before a field was introduced. They run in
+// the background after startup and are no-ops once the data is current.
+@Component
+public class DataBackfills {
+    private static final Logger log = LoggerFactory.getLogger(DataBackfills.class);
+
+    private static final List<Class<?>> VERSIONED = List.of(Booking.class, Maintenance.class, Car.class, User.class);
+
+    private final MessageRepository messageRepo;
+    private final MongoTemplate mongoTemplate;
+
+    public DataBackfills(MessageRepository messageRepo, MongoTemplate mongoTemplate) {
+        this.messageRepo = messageRepo;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        try {
+            // A null @Version makes save() treat the document as new and insert a duplicate
+            for (Class<?> type : VERSIONED) {
+                long versioned = mongoTemplate.updateMulti(new Query(where("version").exists(false)),
+                        new Update().set("version", 0L), type).getModifiedCount();
+                if (versioned > 0) {
+                    log.info("Initialized version on {} {} documents", versioned, type.getSimpleName());
+                }
+            }
+            long updated = messageRepo.backfillConversationKeys();
+            if (updated > 0) {
+                log.info("Backfilled conversationKey on {} messages", updated);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Skipping data backfills: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.carcircle.config;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import com.example.carcircle.auth.Session;
+import com.example.carcircle.auth.User;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.LlmProxyService;
+import com.example.carcircle.service.MongoEvents;
+
+// One id-keyed cache per hot entity type, each switchable and sized through
+// carcircle.cache.<name>.enabled / max-size / ttl, and invalidated on every save or delete.
+@Configuration
+public class EntityCacheConfig {
+
+    @Bean
+    public EntityCache<Car> carCache(Environment env) {
+        return cache("cars", env);
+    }
+
+    @Bean
+    public EntityCache<User> userCache(Environment env) {
+        return cache("users", env);
+    }
+
+    // Login looks users up by email; this maps email -> id in front of userCache
+    @Bean
+    public EntityCache<String> userIdsByEmail(Environment env) {
+        return cache("user-emails", env);
+    }
+
+    @Bean
+    public EntityCache<Booking> bookingCache(Environment env) {
+        return cache("bookings", env);
+    }
+
+    // Token hash -> session; SessionStore keeps it current itself, and its TTL is how long
+    // another node's profile change can take to show up here
+    @Bean
+    public EntityCache<Session> sessionCache(Environment env) {
+        return cache("sessions", env);
+    }
+
+    // Not an entity cache, but it shares the sizing/TTL settings and shows up in /api/cache/stats
+    @Bean
+    public EntityCache<LlmProxyService.CachedResponse> llmResponseCache(Environment env) {
+        return cache("llm-responses", env);
+    }
+
+    @Bean
+    public AbstractMongoEventListener<Car> carCacheInvalidator(EntityCache<Car> carCache) {
+        return new Invalidator<Car>(carCache, Car::getId) {};
+    }
+
+    @Bean
+    public AbstractMongoEventListener<User> userCacheInvalidator(EntityCache<User> userCache) {
+        return new Invalidator<User>(userCache, User::getId) {};
+    }
+
+    @Bean
+    public AbstractMongoEventListener<User> userEmailInvalidator(EntityCache<String> userIdsByEmail) {
+        return new Invalidator<User>(userIdsByEmail, User::getEmail) {};
+    }
+
+    @Bean
+    public AbstractMongoEventListener<Booking> bookingCacheInvalidator(EntityCache<Booking> bookingCache) {
+        return new Invalidator<Booking>(bookingCache, Booking::getId) {};
+    }
+
+    private static <V> EntityCache<V> cache(String name, Environment env) {
+        String prefix = "carcircle.cache." + name + ".";
+        return new EntityCache<>(name,
+                env.getProperty(prefix + "enabled", Boolean.class, true),
+                env.getProperty(prefix + "max-size", Integer.class, 10_000),
+                env.getProperty(prefix + "ttl", Duration.class, Duration.ofMinutes(10)));
+    }
+
+    // Subclassed anonymously per type so AbstractMongoEventListener can resolve V
+    // and only receive events for that entity
+    private abstract static class Invalidator<V> extends AbstractMongoEventListener<V> {
+        private final EntityCache<?> cache;
+        private final Function<V, String> keyOf;
+
+        Invalidator(EntityCache<?> cache, Function<V, String> keyOf) {
+            this.cache = cache;
+            this.keyOf = keyOf;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<V> event) {
+            cache.invalidate(keyOf.apply(event.getSource()));
+        }
+
+        // Delete events only carry the _id; caches keyed otherwise rely on the id lookup behind them
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<V> event) {
+            cache.invalidate(MongoEvents.idOf(event.getSource()));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.carcircle.config;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.carcircle.service.Timestamps;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+@Configuration
+public class JacksonConfig {
+
+    // Instants still serialize as ISO-8601 ("2024-01-15T00:00:00Z"); on the way in they also
+    // accept the plain dates the date pickers send and epoch milliseconds
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer lenientInstants() {
+        return builder -> builder.deserializerByType(Instant.class, new LenientInstantDeserializer());
+    }
+
+    static class LenientInstantDeserializer extends StdScalarDeserializer<Instant> {
+        private static final long serialVersionUID = 1L;
+
+        LenientInstantDeserializer() {
+            super(Instant.class);
+        }
+
+        @Override
+        public Instant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return Instant.ofEpochMilli(p.getLongValue());
+            }
+            String text = p.getValueAsString();
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+            try {
+                return Timestamps.parse(text);
+            } catch (IllegalArgumentException e) {
+                throw ctxt.weirdStringException(text, Instant.class, e.getMessage());
+            }
+        }
+    }
+}
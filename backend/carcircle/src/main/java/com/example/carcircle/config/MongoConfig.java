@@ -0,0 +1,60 @@
+package com.example.carcircle.config;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import com.example.carcircle.service.MongoCommandMetrics;
+import com.example.carcircle.service.Timestamps;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(@Value("${carcircle.timestamps.legacy-zone:}") String legacyZone) {
+        return new MongoCustomConversions(List.of(new LegacyTimestampReader(Timestamps.legacyZone(legacyZone))));
+    }
+
+    // Applies to both the blocking and the reactive client
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandMetricsListener(MongoCommandMetrics commandMetrics) {
+        return settings -> settings.addCommandListener(commandMetrics);
+    }
+
+    // Timestamps used to be stored as LocalDateTime strings. Until TimestampMigration has
+    // rewritten a document, its string values are parsed on read; an unparseable one reads
+    // as null rather than making the whole document unreadable.
+    @ReadingConverter
+    static final class LegacyTimestampReader implements Converter<String, Instant> {
+        private static final Logger log = LoggerFactory.getLogger(LegacyTimestampReader.class);
+
+        private final ZoneId zone;
+
+        LegacyTimestampReader(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public Instant convert(String source) {
+            if (source.isBlank()) {
+                return null;
+            }
+            try {
+                return Timestamps.parse(source, zone);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unparseable stored timestamp '{}'", source);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.carcircle.config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+// Creates the indexes declared on @Document classes once the app is up. Spring's
+// auto-index-creation would do this inside context startup and fail it when Mongo
+// is unreachable, so it runs in the background and only logs problems instead.
+// The outcome of the last run, and how the live indexes compare with the declared
+// ones, is reported through /api/admin/indexes.
+@Component
+public class MongoIndexInitializer {
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    private volatile List<Map<String, Object>> lastRun = List.of();
+    private volatile Instant lastRunAt;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createDeclaredIndexes() {
+        ensureIndexes();
+    }
+
+    // createIndex is a no-op for an index that already exists with the same definition
+    public synchronized List<Map<String, Object>> ensureIndexes() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        outer:
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            for (IndexDefinition index : resolver.resolveIndexForEntity(entity)) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("collection", entity.getCollection());
+                result.put("name", nameOf(index));
+                result.put("keys", index.getIndexKeys());
+                result.put("unique", Boolean.TRUE.equals(index.getIndexOptions().get("unique")));
+                try {
+                    indexOps.createIndex(index);
+                    result.put("status", "ok");
+                } catch (DataAccessResourceFailureException e) {
+                    log.warn("MongoDB unreachable, skipping index creation: {}", e.getMessage());
+                    result.put("status", "skipped");
+                    result.put("error", e.getMessage());
+                    results.add(result);
+                    break outer;
+                } catch (DataAccessException e) {
+                    // Typically a unique index over existing duplicates, or a same-name index with other keys
+                    log.warn("Could not create index {} on {}: {}", index.getIndexKeys(), entity.getCollection(), e.getMessage());
+                    result.put("status", "failed");
+                    result.put("error", e.getMessage());
+                }
+                results.add(result);
+            }
+        }
+        lastRun = List.copyOf(results);
+        lastRunAt = Instant.now();
+        return results;
+    }
+
+    // Declared vs. live indexes per collection
+    public Map<String, Object> status() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        List<Map<String, Object>> collections = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            Set<String> declared = new TreeSet<>();
+            resolver.resolveIndexForEntity(entity).forEach(index -> declared.add(nameOf(index)));
+            Set<String> live = new TreeSet<>();
+            for (IndexInfo info : mongoTemplate.indexOps(entity.getType()).getIndexInfo()) {
+                live.add(info.getName());
+            }
+            Set<String> missing = new TreeSet<>(declared);
+            missing.removeAll(live);
+            Set<String> undeclared = new TreeSet<>(live);
+            undeclared.removeAll(declared);
+            undeclared.remove("_id_");
+
+            Map<String, Object> collection = new LinkedHashMap<>();
+            collection.put("collection", entity.getCollection());
+            collection.put("declared", declared);
+            collection.put("live", live);
+            collection.put("missing", missing);
+            collection.put("undeclared", undeclared);
+            collections.add(collection);
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("collections", collections);
+        status.put("lastRunAt", lastRunAt);
+        status.put("lastRunProblems", lastRun.stream().filter(r -> !"ok".equals(r.get("status"))).toList());
+        return status;
+    }
+
+    private List<MongoPersistentEntity<?>> documentEntities() {
+        List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(Document.class)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    private static String nameOf(IndexDefinition index) {
+        Object name = index.getIndexOptions().get("name");
+        return name != null ? name.toString() : index.getIndexKeys().toJson();
+    }
+}
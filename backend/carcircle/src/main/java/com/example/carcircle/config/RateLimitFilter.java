@@ -0,0 +1,147 @@
+package com.example.carcircle.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import com.example.carcircle.auth.TokenService;
+import com.example.carcircle.service.RateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Throttles the routes listed in carcircle.ratelimit.rules ("METHOD /path=limit/period", comma
+// separated) with one token bucket per caller: the user of a valid bearer token, otherwise the
+// client address. A caller over the limit gets 429 with Retry-After. Other routes pass through
+// after one map lookup.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final TokenService tokenService;
+    private final boolean enabled;
+    // path -> method -> rule
+    private final Map<String, Map<String, Rule>> rules;
+
+    public RateLimitFilter(TokenService tokenService, MeterRegistry registry,
+                           @Value("${carcircle.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${carcircle.ratelimit.rules:}") String rules) {
+        this.tokenService = tokenService;
+        this.enabled = enabled;
+        this.rules = parseRules(rules, registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The decoded path without ;params, as Spring MVC matches it, so an encoded or
+        // parameterised spelling of a route cannot skip its limit
+        Map<String, Rule> byMethod = enabled ? rules.get(UrlPathHelper.defaultInstance.getLookupPathForRequest(request)) : null;
+        Rule rule = byMethod == null ? null : byMethod.get(request.getMethod());
+        if (rule == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long waitNanos = rule.limiter.tryAcquire(callerOf(request));
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        rule.rejected.increment();
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"error\":\"Too many requests; retry in " + retryAfter + "s\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String callerOf(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            Optional<Object> subject = tokenService.verifyHeader(authorization).map(claims -> claims.get("sub"));
+            if (subject.isPresent() && subject.get() instanceof String userId) {
+                return userId;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    @Scheduled(fixedDelayString = "${carcircle.ratelimit.evict-interval:PT1M}")
+    public void evictIdle() {
+        int evicted = 0;
+        for (Map<String, Rule> byMethod : rules.values()) {
+            for (Rule rule : byMethod.values()) {
+                evicted += rule.limiter.evictIdle();
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate-limit buckets", evicted);
+        }
+    }
+
+    private static Map<String, Map<String, Rule>> parseRules(String spec, MeterRegistry registry) {
+        Map<String, Map<String, Rule>> rules = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return rules;
+        }
+        for (String entry : spec.split(",")) {
+            String[] routeAndRate = entry.trim().split("=");
+            String[] route = routeAndRate[0].trim().split("\\s+");
+            String[] rate = routeAndRate.length == 2 ? routeAndRate[1].trim().split("/") : new String[0];
+            if (route.length != 2 || rate.length != 2) {
+                throw new IllegalArgumentException(
+                        "Rate limit rules look like POST /api/auth/login=10/PT1M, got '" + entry.trim() + "'");
+            }
+            String method = route[0].toUpperCase();
+            String path = route[1];
+            RateLimiter limiter;
+            try {
+                limiter = new RateLimiter(Integer.parseInt(rate[0].trim()), Duration.parse(rate[1].trim()));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Bad rate in rate limit rule '" + entry.trim() + "'", e);
+            }
+            Counter rejected = Counter.builder("carcircle.ratelimit.rejected")
+                    .description("Requests refused with 429")
+                    .tags("method", method, "uri", path)
+                    .register(registry);
+            Gauge.builder("carcircle.ratelimit.buckets", limiter, RateLimiter::size)
+                    .description("Callers with a partly used bucket")
+                    .tags("method", method, "uri", path)
+                    .register(registry);
+            rules.computeIfAbsent(path, p -> new HashMap<>()).put(method, new Rule(limiter, rejected));
+        }
+        return rules;
+    }
+
+    private static final class Rule {
+        final RateLimiter limiter;
+        final Counter rejected;
+
+        Rule(RateLimiter limiter, Counter rejected) {
+            this.limiter = limiter;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.carcircle.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.catalina.connector.ResponseFacade;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.carcircle.service.MongoCommandMetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Per-endpoint Mongo round trips and response body size, tagged like http.server.requests
+// (method and the matched route template). Bytes come from Tomcat's own counter rather than
+// a wrapped output stream, and meters are found by the route string Spring already holds, so
+// a request adds no allocation here. Async responses (streamed bodies, Flux, LLM relays) are
+// recorded when they complete; their Mongo commands run on other threads and are not counted.
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry registry;
+    private final MongoCommandMetrics commandMetrics;
+    // method -> route -> meters
+    private final Map<String, Map<String, RouteMeters>> meters = new ConcurrentHashMap<>();
+
+    public RequestMetricsFilter(MeterRegistry registry, MongoCommandMetrics commandMetrics) {
+        this.registry = registry;
+        this.commandMetrics = commandMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        commandMetrics.startCounting();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long commands = commandMetrics.stopCounting();
+            // Read now: an error dispatch later in an async request replaces it with /error
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern instanceof String route ? route : UNKNOWN;
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request.getMethod(), uri, response, commands);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            } else {
+                record(request.getMethod(), uri, response, commands);
+            }
+        }
+    }
+
+    private void record(String method, String uri, HttpServletResponse response, long commands) {
+        RouteMeters route = meters(method, uri);
+        route.mongoCommands.record(commands);
+        long bytes = bytesWritten(response);
+        if (bytes >= 0) {
+            route.responseBytes.record(bytes);
+        }
+    }
+
+    private RouteMeters meters(String method, String uri) {
+        Map<String, RouteMeters> byRoute = meters.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+        RouteMeters route = byRoute.get(uri);
+        if (route == null) {
+            route = byRoute.computeIfAbsent(uri, u -> new RouteMeters(registry, method, u));
+        }
+        return route;
+    }
+
+    // -1 outside Tomcat (e.g. MockMvc), where there is no byte count to read
+    private static long bytesWritten(ServletResponse response) {
+        while (response instanceof ServletResponseWrapper wrapper) {
+            response = wrapper.getResponse();
+        }
+        return response instanceof ResponseFacade facade ? facade.getContentWritten() : -1;
+    }
+
+    private static final class RouteMeters {
+        final DistributionSummary mongoCommands;
+        final DistributionSummary responseBytes;
+
+        RouteMeters(MeterRegistry registry, String method, String uri) {
+            this.mongoCommands = DistributionSummary.builder("carcircle.http.mongo.commands")
+                    .description("Mongo commands issued while handling one request")
+                    .tags("method", method, "uri", uri)
+                    .register(registry);
+            this.responseBytes = DistributionSummary.builder("carcircle.http.response.size")
+                    .description("Response body size")
+                    .baseUnit("bytes")
+                    .tags("method", method, "uri", uri)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.carcircle.config;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.Message;
+import com.example.carcircle.service.Timestamps;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Rewrites timestamps stored as strings into BSON dates, in _id order and in small unordered
+// batches, while the app keeps serving. Each update only matches if the field still holds the
+// string that was read, so a concurrent write from the app is never overwritten. Reads of
+// not-yet-migrated documents go through MongoConfig's string reader in the meantime.
+// Runs after every startup and finds nothing to do once the data is migrated.
+@Component
+public class TimestampMigration {
+    private static final Logger log = LoggerFactory.getLogger(TimestampMigration.class);
+
+    private static final Map<Class<?>, List<String>> FIELDS = new LinkedHashMap<>();
+    static {
+        FIELDS.put(Booking.class, List.of("startDate", "endDate", "createdAt", "updatedAt"));
+        FIELDS.put(Maintenance.class, List.of("createdAt", "deadline", "completedAt"));
+        FIELDS.put(Message.class, List.of("timestamp"));
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration pause;
+    // Must match MongoConfig's reader, so a document reads the same before and after migrating
+    private final ZoneId legacyZone;
+
+    public TimestampMigration(MongoTemplate mongoTemplate,
+                              @Value("${carcircle.migration.timestamps.enabled:true}") boolean enabled,
+                              @Value("${carcircle.migration.timestamps.batch-size:500}") int batchSize,
+                              @Value("${carcircle.migration.timestamps.pause:PT0.05S}") Duration pause,
+                              @Value("${carcircle.timestamps.legacy-zone:}") String legacyZone) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.legacyZone = Timestamps.legacyZone(legacyZone);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (Map.Entry<Class<?>, List<String>> entry : FIELDS.entrySet()) {
+                migrate(mongoTemplate.getCollectionName(entry.getKey()), entry.getValue());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Skipping timestamp migration: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long migrate(String collection, List<String> fields) throws InterruptedException {
+        Criteria anyString = new Criteria().orOperator(fields.stream()
+                .map(field -> where(field).type(JsonSchemaObject.Type.STRING))
+                .toArray(Criteria[]::new));
+        long migrated = 0;
+        long unparseable = 0;
+        Object lastId = null;
+        while (true) {
+            Criteria criteria = lastId == null ? anyString : new Criteria().andOperator(anyString, where("_id").gt(lastId));
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(batchSize);
+            fields.forEach(query.fields()::include);
+            List<Document> batch = mongoTemplate.find(query, Document.class, collection);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+            int queued = 0;
+            for (Document doc : batch) {
+                Criteria unchanged = where("_id").is(doc.get("_id"));
+                Update update = new Update();
+                for (String field : fields) {
+                    if (!(doc.get(field) instanceof String text)) {
+                        continue;
+                    }
+                    Date value;
+                    if (text.isBlank()) {
+                        value = null;
+                    } else {
+                        try {
+                            value = Date.from(Timestamps.parse(text, legacyZone));
+                        } catch (IllegalArgumentException e) {
+                            unparseable++;
+                            continue;
+                        }
+                    }
+                    unchanged = unchanged.and(field).is(text);
+                    update.set(field, value);
+                }
+                if (!update.getUpdateObject().isEmpty()) {
+                    ops.updateOne(new Query(unchanged), update);
+                    queued++;
+                }
+            }
+            if (queued > 0) {
+                migrated += ops.execute().getModifiedCount();
+            }
+            lastId = batch.get(batch.size() - 1).get("_id");
+            if (batch.size() < batchSize) {
+                break;
+            }
+            // Leave headroom for live traffic between batches
+            Thread.sleep(pause.toMillis());
+        }
+        if (migrated > 0 || unparseable > 0) {
+            log.info("Converted string timestamps to dates on {} {} documents ({} unparseable values left as-is)",
+                    migrated, collection, unparseable);
+        }
+        return migrated;
+    }
+}
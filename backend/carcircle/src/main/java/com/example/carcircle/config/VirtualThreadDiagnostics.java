@@ -0,0 +1,118 @@
+package com.example.carcircle.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+// Streams jdk.VirtualThreadPinned JFR events while the app runs in virtual-thread mode.
+// A virtual thread that blocks inside synchronized or native code holds its carrier
+// thread, which quietly brings back the platform-pool ceiling; each distinct pinning
+// site is logged once and all events are counted.
+@Component
+public class VirtualThreadDiagnostics {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int RECENT_LIMIT = 20;
+    private static final int STACK_DEPTH = 12;
+
+    private final boolean virtualThreads;
+    private final boolean enabled;
+    private final Duration threshold;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+    private volatile RecordingStream stream;
+
+    public VirtualThreadDiagnostics(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                    @Value("${carcircle.threads.pinning-diagnostics:true}") boolean enabled,
+                                    @Value("${carcircle.threads.pinning-threshold:PT0.02S}") Duration threshold) {
+        this.virtualThreads = virtualThreads;
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Serving requests on {} threads", virtualThreads ? "virtual" : "platform");
+        if (!virtualThreads || !enabled) {
+            return;
+        }
+        RecordingStream rs = new RecordingStream();
+        rs.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        rs.onEvent(PINNED_EVENT, this::record);
+        rs.startAsync();
+        stream = rs;
+    }
+
+    private void record(RecordedEvent event) {
+        pinnedEvents.increment();
+        List<String> frames = new ArrayList<>();
+        if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                if (frames.size() == STACK_DEPTH) {
+                    break;
+                }
+                frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber());
+            }
+        }
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("at", event.getStartTime().toString());
+        entry.put("durationMs", event.getDuration().toMillis());
+        entry.put("thread", event.getThread() == null ? null : event.getThread().getJavaName());
+        entry.put("stack", frames);
+        synchronized (recent) {
+            if (recent.size() == RECENT_LIMIT) {
+                recent.removeFirst();
+            }
+            recent.addLast(entry);
+        }
+        if (reportedSites.add(String.join("|", frames))) {
+            log.warn("Virtual thread pinned its carrier for {} ms:\n  at {}",
+                    event.getDuration().toMillis(), String.join("\n  at ", frames));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", virtualThreads ? "virtual" : "platform");
+        stats.put("pinningDiagnostics", stream != null);
+        stats.put("pinningThresholdMs", threshold.toMillis());
+        stats.put("pinnedEvents", pinnedEvents.sum());
+        stats.put("distinctPinningSites", reportedSites.size());
+        synchronized (recent) {
+            stats.put("recentPinned", new ArrayList<>(recent));
+        }
+        stats.put("sampledAt", Instant.now().toString());
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+}
@@ -1,40 +1,43 @@
 package com.example.carcircle.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import com.example.carcircle.service.LlmProxyException;
+import com.example.carcircle.service.LlmProxyService;
+
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/llm")
 public class AnthropicProxyController {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String ANTHROPIC_ENDPOINT = "https://api.anthropic.com/v1/complete";
+    @Autowired
+    private LlmProxyService llmProxy;
 
+    // Completes once upstream headers arrive; the body then streams through the emitter
+    // without a servlet thread attached
     @PostMapping("/claude")
-    public ResponseEntity<?> proxyToClaude(@RequestBody Map<String, Object> payload) {
-        String apiKey = System.getenv("ANTHROPIC_API_KEY");
-        if (apiKey == null || apiKey.isBlank()) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "ANTHROPIC_API_KEY not configured on server environment"));
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        // Anthropic typically accepts x-api-key header
-        headers.set("x-api-key", apiKey);
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> proxyToClaude(@RequestBody Map<String, Object> payload) {
+        return llmProxy.forward(payload);
+    }
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return llmProxy.stats();
+    }
 
-        try {
-            ResponseEntity<String> response = restTemplate.postForEntity(ANTHROPIC_ENDPOINT, request, String.class);
-            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
-        } catch (RestClientException e) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of("error", "Failed to contact Anthropic API", "details", e.getMessage()));
+    @ExceptionHandler(LlmProxyException.class)
+    public ResponseEntity<Map<String, String>> handleProxyFailure(LlmProxyException e) {
+        Map<String, String> body = new HashMap<>();
+        body.put("error", e.getMessage());
+        if (e.getDetails() != null) {
+            body.put("details", e.getDetails());
         }
+        return ResponseEntity.status(e.getStatus()).body(body);
     }
 }
@@ -1,28 +1,225 @@
 package com.example.carcircle.controller;
 
 import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingFilter;
 import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.model.KeysetCursor;
+import com.example.carcircle.service.BookingAvailabilityIndex;
+import com.example.carcircle.service.BulkImporter;
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.PartialUpdater;
+import com.example.carcircle.service.PricingEngine;
+import com.example.carcircle.service.Timestamps;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingController {
+    // totalAmount is priced by PricingEngine, never taken from the client
+    private static final Set<String> PATCHABLE = Set.of(
+            "carId", "userId", "startDate", "endDate", "status", "pickupLocation", "customerEmail");
+    // Fields that move the booking on the car's calendar and so need an overlap check
+    private static final Set<String> SCHEDULE_FIELDS = Set.of("carId", "startDate", "endDate", "status");
+    private static final Set<String> PRICE_FIELDS = Set.of("carId", "startDate", "endDate");
+    private static final List<String> CSV_COLUMNS = List.of(
+            "id", "carId", "userId", "startDate", "endDate", "status", "totalAmount", "pickupLocation", "customerEmail", "createdAt");
+
     @Autowired
     private BookingRepository bookingRepo;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingAvailabilityIndex availability;
+    @Autowired
+    private PartialUpdater partialUpdater;
+    @Autowired
+    private EntityCache<Booking> bookingCache;
+    @Autowired
+    private BulkImporter bulkImporter;
+    @Autowired
+    private PricingEngine pricing;
+    @Autowired
+    private CarRepository carRepo;
+    @Autowired
+    private EntityCache<Car> carCache;
 
+    @Value("${carcircle.bookings.page-size:50}")
+    private int defaultPageSize;
+    @Value("${carcircle.bookings.max-page-size:500}")
+    private int maxPageSize;
+
+    // Same JSON array as before, but written straight from the Mongo cursor instead of a findAll() list
     @GetMapping
-    public List<Booking> getAllBookings() {
-        return bookingRepo.findAll();
+    public ResponseEntity<StreamingResponseBody> getAllBookings(BookingFilter filter) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(JsonStreams.array(objectMapper, () -> bookingRepo.streamAll(filter)));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getBookingPage(BookingFilter filter,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
+        KeysetCursor after;
+        try {
+            after = KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        int pageSize = Math.max(1, Math.min(limit == null ? defaultPageSize : limit, maxPageSize));
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<Booking> rows = bookingRepo.findPage(filter, after, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Booking> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = items.get(items.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        page.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/stream", produces = JsonStreams.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBookings(BookingFilter filter) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(JsonStreams.NDJSON))
+                .body(JsonStreams.ndjson(objectMapper, () -> bookingRepo.streamAll(filter)));
+    }
+
+    // Each row goes through the same overlap check as addBooking, against the index and the
+    // rows imported before it, so an import cannot double-book a car
+    @PostMapping(value = "/bulk", consumes = {JsonStreams.NDJSON, CsvStreams.CSV})
+    public Map<String, Object> bulkImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                          InputStream body) throws IOException {
+        return bulkImporter.importRows(body, CsvStreams.isCsv(contentType), Booking.class, new BulkImporter.RowHandler<>() {
+            @Override
+            public String prepare(Booking booking) {
+                if (booking.getCarId() == null || booking.getCarId().isBlank()) {
+                    return "carId is required";
+                }
+                if (booking.getStartDate() == null || booking.getEndDate() == null) {
+                    return "startDate and endDate are required";
+                }
+                if (!booking.getEndDate().isAfter(booking.getStartDate())) {
+                    return "endDate must be after startDate";
+                }
+                if (booking.getStatus() == null || booking.getStatus().isEmpty()) {
+                    booking.setStatus("Pending");
+                }
+                if (booking.getCreatedAt() == null) {
+                    booking.setCreatedAt(Timestamps.now());
+                }
+                booking.setUpdatedAt(Timestamps.now());
+                if (booking.getId() == null || booking.getId().isEmpty()) {
+                    booking.setId(new ObjectId().toHexString());
+                }
+                // Priced like addBooking; an amount in the row is ignored
+                Optional<Car> car = findCar(booking.getCarId());
+                if (car.isEmpty()) {
+                    return "Unknown car '" + booking.getCarId() + "'";
+                }
+                booking.setTotalAmount(pricing.quote(car.get(), booking.getStartDate(), booking.getEndDate(), null).getTotal());
+                String conflictingId = availability.tryReserve(booking);
+                return conflictingId == null ? null
+                        : "Car is already booked for an overlapping period (booking " + conflictingId + ")";
+            }
+
+            @Override
+            public void rejected(Booking booking) {
+                // A duplicate id may belong to a booking that is already stored; keep its slot
+                bookingRepo.findById(booking.getId()).ifPresentOrElse(availability::apply,
+                        () -> availability.release(booking.getId()));
+            }
+        });
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(BookingFilter filter,
+                                                                @RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(CsvStreams.CSV))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bookings.csv")
+                    .body(CsvStreams.csv(CSV_COLUMNS, b -> Arrays.asList(
+                                    b.getId(), b.getCarId(), b.getUserId(), b.getStartDate(), b.getEndDate(), b.getStatus(),
+                                    b.getTotalAmount(), b.getPickupLocation(), b.getCustomerEmail(), b.getCreatedAt()),
+                            () -> bookingRepo.streamAll(filter)));
+        }
+        return streamBookings(filter);
+    }
+
+    // What addBooking would charge for this car and window right now
+    @GetMapping("/quote")
+    public ResponseEntity<?> getQuote(@RequestParam String carId, @RequestParam String from, @RequestParam String to) {
+        Instant start;
+        Instant end;
+        try {
+            start = Timestamps.parse(from);
+            end = Timestamps.parse(to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        Optional<Car> car = findCar(carId);
+        if (car.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Car not found"));
+        }
+        try {
+            return ResponseEntity.ok(pricing.quote(car.get(), start, end, null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Bookings overlapping [from, to), earliest start first, as a range scan on the start_end index
+    @GetMapping("/window")
+    public ResponseEntity<?> getBookingsInWindow(@RequestParam String from, @RequestParam String to) {
+        Instant start;
+        Instant end;
+        try {
+            start = Timestamps.parse(from);
+            end = Timestamps.parse(to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (!end.isAfter(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "'to' must be after 'from'"));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(JsonStreams.array(objectMapper,
+                        () -> bookingRepo.streamByStartDateLessThanAndEndDateGreaterThanOrderByStartDateAsc(end, start)));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Booking> getBookingById(@PathVariable String id) {
-        Optional<Booking> booking = bookingRepo.findById(id);
+        Optional<Booking> booking = bookingCache.get(id, bookingRepo::findById);
         if (booking.isPresent()) {
             return ResponseEntity.ok(booking.get());
         } else {
@@ -31,19 +228,31 @@ public class BookingController {
     }
 
     @PostMapping
-    public Booking addBooking(@RequestBody Booking booking) {
+    public ResponseEntity<?> addBooking(@RequestBody Booking booking) {
         // Set default status if not provided
         if (booking.getStatus() == null || booking.getStatus().isEmpty()) {
             booking.setStatus("Pending");
         }
         // Set timestamps
-        booking.setCreatedAt(java.time.LocalDateTime.now().toString());
-        booking.setUpdatedAt(java.time.LocalDateTime.now().toString());
-        return bookingRepo.save(booking);
+        booking.setCreatedAt(Timestamps.now());
+        booking.setUpdatedAt(Timestamps.now());
+        // Always a fresh id, assigned up front so the car's slot can be held before the insert.
+        // A client-supplied one could name an existing booking and move its slot.
+        booking.setId(new ObjectId().toHexString());
+        booking.setVersion(null);
+        ResponseEntity<?> unpriced = priceOrReject(booking);
+        if (unpriced != null) {
+            return unpriced;
+        }
+        ResponseEntity<?> rejected = reserveOrReject(booking);
+        if (rejected != null) {
+            return rejected;
+        }
+        return ResponseEntity.ok(saveReserved(booking));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Booking> updateBooking(@PathVariable String id, @RequestBody Booking bookingDetails) {
+    public ResponseEntity<?> updateBooking(@PathVariable String id, @RequestBody Booking bookingDetails) {
         Optional<Booking> optionalBooking = bookingRepo.findById(id);
         if (optionalBooking.isPresent()) {
             Booking booking = optionalBooking.get();
@@ -52,17 +261,131 @@ public class BookingController {
             booking.setStartDate(bookingDetails.getStartDate());
             booking.setEndDate(bookingDetails.getEndDate());
             booking.setStatus(bookingDetails.getStatus());
-            booking.setTotalAmount(bookingDetails.getTotalAmount());
             booking.setPickupLocation(bookingDetails.getPickupLocation());
             booking.setCustomerEmail(bookingDetails.getCustomerEmail());
-            booking.setUpdatedAt(java.time.LocalDateTime.now().toString());
-            Booking updatedBooking = bookingRepo.save(booking);
+            booking.setUpdatedAt(Timestamps.now());
+            ResponseEntity<?> unpriced = priceOrReject(booking);
+            if (unpriced != null) {
+                return unpriced;
+            }
+            ResponseEntity<?> rejected = reserveOrReject(booking);
+            if (rejected != null) {
+                return rejected;
+            }
+            Booking updatedBooking = saveReserved(booking);
             return ResponseEntity.ok(updatedBooking);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchBooking(@PathVariable String id, @RequestBody Map<String, Object> fields) {
+        boolean reserved = false;
+        boolean landed = false;
+        try {
+            Long expectedVersion = PartialUpdater.expectedVersion(fields);
+            PartialUpdater.checkAllowed(fields, PATCHABLE);
+            Map<String, Object> alsoSet = new HashMap<>();
+            alsoSet.put("updatedAt", Timestamps.now());
+            if (fields.keySet().stream().anyMatch(SCHEDULE_FIELDS::contains)) {
+                // The overlap check needs the whole booking, so read it once and pin the write to that version
+                Optional<Booking> current = bookingRepo.findById(id);
+                if (current.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+                Booking candidate = current.get();
+                if (expectedVersion != null && !expectedVersion.equals(candidate.getVersion())) {
+                    throw new OptimisticLockingFailureException("Booking " + id + " was modified since version " + expectedVersion);
+                }
+                expectedVersion = candidate.getVersion();
+                candidate.setCarId(stringField(fields, "carId", candidate.getCarId()));
+                candidate.setStartDate(instantField(fields, "startDate", candidate.getStartDate()));
+                candidate.setEndDate(instantField(fields, "endDate", candidate.getEndDate()));
+                candidate.setStatus(stringField(fields, "status", candidate.getStatus()));
+                if (fields.keySet().stream().anyMatch(PRICE_FIELDS::contains)) {
+                    ResponseEntity<?> unpriced = priceOrReject(candidate);
+                    if (unpriced != null) {
+                        return unpriced;
+                    }
+                    alsoSet.put("totalAmount", candidate.getTotalAmount());
+                }
+                ResponseEntity<?> rejected = reserveOrReject(candidate);
+                if (rejected != null) {
+                    return rejected;
+                }
+                reserved = true;
+            }
+            Optional<Booking> updated = partialUpdater.patch(Booking.class, id, fields, PATCHABLE, expectedVersion, alsoSet);
+            landed = updated.isPresent();
+            return updated.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } finally {
+            if (reserved && !landed) {
+                // Undo a slot reserved for a write that did not land, whatever stopped it
+                bookingRepo.findById(id).ifPresentOrElse(availability::apply, () -> availability.release(id));
+            }
+        }
+    }
+
+    private static String stringField(Map<String, Object> fields, String name, String current) {
+        return fields.containsKey(name) ? Objects.toString(fields.get(name), null) : current;
+    }
+
+    private static Instant instantField(Map<String, Object> fields, String name, Instant current) {
+        if (!fields.containsKey(name)) {
+            return current;
+        }
+        Object value = fields.get(name);
+        return value == null ? null : Timestamps.parse(value.toString());
+    }
+
+    private Optional<Car> findCar(String carId) {
+        return carId == null || carId.isBlank() ? Optional.empty() : carCache.get(carId, carRepo::findById);
+    }
+
+    // Sets totalAmount from the quote, excluding the booking's own days from the demand
+    private ResponseEntity<?> priceOrReject(Booking booking) {
+        Optional<Car> car = findCar(booking.getCarId());
+        if (car.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown car '" + booking.getCarId() + "'"));
+        }
+        try {
+            booking.setTotalAmount(pricing.quote(car.get(), booking.getStartDate(), booking.getEndDate(), booking.getId()).getTotal());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return null;
+    }
+
+    private ResponseEntity<?> reserveOrReject(Booking booking) {
+        String conflictingId;
+        try {
+            conflictingId = availability.tryReserve(booking);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (conflictingId != null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Car is already booked for an overlapping period",
+                    "conflictingBookingId", conflictingId));
+        }
+        return null;
+    }
+
+    private Booking saveReserved(Booking booking) {
+        try {
+            return bookingRepo.save(booking);
+        } catch (RuntimeException e) {
+            // Put back whatever is stored; a failed update must not free the booking's existing slot
+            String id = booking.getId();
+            bookingRepo.findById(id).ifPresentOrElse(availability::apply, () -> availability.release(id));
+            throw e;
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBooking(@PathVariable String id) {
         Optional<Booking> booking = bookingRepo.findById(id);
@@ -0,0 +1,30 @@
+package com.example.carcircle.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carcircle.service.EntityCache;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+    @Autowired
+    private List<EntityCache<?>> caches;
+
+    @GetMapping("/stats")
+    public List<Map<String, Object>> getStats() {
+        return caches.stream().map(EntityCache::stats).toList();
+    }
+
+    @PostMapping("/clear")
+    public Map<String, Object> clearAll() {
+        caches.forEach(EntityCache::invalidateAll);
+        return Map.of("cleared", caches.size());
+    }
+}
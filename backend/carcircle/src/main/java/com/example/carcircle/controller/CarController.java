@@ -6,12 +6,15 @@ import java.util.List;
 import java.util.Optional;
 import com.example.carcircle.model.Car;
 import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.service.EntityCache;
 
 @RestController
 @RequestMapping("/api/cars")
 public class CarController {
     @Autowired
     private CarRepository carRepository;
+    @Autowired
+    private EntityCache<Car> carCache;
 
     @GetMapping
     public List<Car> getAllCars() {
@@ -20,7 +23,7 @@ public class CarController {
 
     @GetMapping("/{id}")
     public Optional<Car> getCarById(@PathVariable String id) {
-        return carRepository.findById(id);
+        return carCache.get(id, carRepository::findById);
     }
 
     @PostMapping
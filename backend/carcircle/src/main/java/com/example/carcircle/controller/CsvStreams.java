@@ -0,0 +1,64 @@
+package com.example.carcircle.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// CSV counterpart of JsonStreams: one row per document, written as it comes off the cursor.
+public final class CsvStreams {
+    public static final String CSV = "text/csv";
+
+    private static final int FLUSH_EVERY = 256;
+
+    private CsvStreams() {}
+
+    public static boolean isCsv(String contentType) {
+        return contentType != null && MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV));
+    }
+
+    public static <T> StreamingResponseBody csv(List<String> columns, Function<T, List<Object>> row,
+                                                Supplier<Stream<T>> source) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<T> stream = source.get()) {
+                writeRow(writer, columns);
+                int written = 0;
+                for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                    writeRow(writer, row.apply(it.next()));
+                    if (++written % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+            writer.flush();
+        };
+    }
+
+    private static void writeRow(Writer writer, List<?> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object cell = cells.get(i);
+            writer.write(cell == null ? "" : escape(cell.toString()));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,74 +1,150 @@
 package com.example.carcircle.controller;
 
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.service.DashboardMetrics;
+import com.example.carcircle.service.Timestamps;
+
+// Every value here is read from DashboardMetrics counters; no request touches Mongo.
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
+    // NumberFormat is not thread-safe, so each call formats with its own clone of this one
+    private static final NumberFormat RUPEES = rupeeFormat();
+
+    @Autowired
+    private DashboardMetrics metrics;
 
     @GetMapping("/{role}")
-    public Map<String, Object> getDashboard(@PathVariable String role) {
+    public Map<String, Object> getDashboard(@PathVariable String role,
+                                            @RequestParam(required = false) String userId) {
         switch(role.toLowerCase()) {
             case "admin":
                 return Map.of(
                     "stats", List.of(
-                        Map.of("label", "Total Users", "value", 2847, "trend", "+12% this month"),
-                        Map.of("label", "Active Rentals", "value", 156, "trend", "85% capacity"),
-                        Map.of("label", "System Health", "value", "99.9%", "trend", "All systems operational"),
-                        Map.of("label", "Open Tickets", "value", 23, "trend", "3 high priority")
+                        Map.of("label", "Total Users", "value", metrics.totalUsers(), "trend", metrics.totalCars() + " vehicles in fleet"),
+                        Map.of("label", "Active Rentals", "value", metrics.activeRentals(), "trend", utilization() + "% capacity"),
+                        Map.of("label", "Unread Messages", "value", metrics.unreadMessages(), "trend", "Across all inboxes"),
+                        Map.of("label", "Open Tickets", "value", metrics.openJobs(), "trend", metrics.urgentOpenJobs() + " high priority")
                     ),
-                    "alerts", List.of(
-                        Map.of("type", "warning", "title", "High API Usage", "description", "Payment gateway approaching rate limit", "time", "5 min ago"),
-                        Map.of("type", "info", "title", "System Backup Completed", "description", "Daily backup completed successfully", "time", "2 hours ago")
-                    )
+                    "alerts", alerts()
                 );
             case "manager":
+                YearMonth month = YearMonth.now();
                 return Map.of(
                     "stats", List.of(
-                        Map.of("label", "Total Fleet", "value", 24, "trend", "+2 this month"),
-                        Map.of("label", "Active Rentals", "value", 18, "trend", "75% utilization"),
-                        Map.of("label", "Monthly Revenue", "value", "₹1,85,000", "trend", "+12% vs last month"),
-                        Map.of("label", "Average Rating", "value", "4.8", "trend", "96% satisfaction")
+                        Map.of("label", "Total Fleet", "value", metrics.totalCars(), "trend", metrics.activeRentals() + " on rent"),
+                        Map.of("label", "Active Rentals", "value", metrics.activeRentals(), "trend", utilization() + "% utilization"),
+                        Map.of("label", "Monthly Revenue", "value", rupees(metrics.revenue(month)), "trend", revenueTrend(month)),
+                        Map.of("label", "Pending Jobs", "value", metrics.pendingJobs(), "trend", metrics.urgentOpenJobs() + " urgent")
                     ),
-                    "recentBookings", List.of(
-                        Map.of("id", 1, "customer", "Shounak Shelke", "car", "Honda City", "duration", "3 days", "amount", "₹4,500", "status", "Confirmed"),
-                        Map.of("id", 2, "customer", "Sahil Kanchan", "car", "BMW X1", "duration", "1 week", "amount", "₹12,600", "status", "In Progress"),
-                        Map.of("id", 3, "customer", "Shivam Bhosle", "car", "Maruti Swift", "duration", "2 days", "amount", "₹2,400", "status", "Completed")
-                    )
+                    "recentBookings", metrics.recentBookings().stream().map(this::bookingRow).toList()
                 );
             case "mechanic":
                 return Map.of(
                     "stats", List.of(
-                        Map.of("label", "Assigned Vehicles", "value", 12),
-                        Map.of("label", "Pending Jobs", "value", 5),
-                        Map.of("label", "Completed Today", "value", 3),
-                        Map.of("label", "Urgent Alerts", "value", 2)
+                        Map.of("label", "Assigned Vehicles", "value", userId == null ? metrics.openJobs() : metrics.openJobsFor(userId)),
+                        Map.of("label", "Pending Jobs", "value", metrics.pendingJobs()),
+                        Map.of("label", "Completed Today", "value", metrics.completedJobsOn(LocalDate.now())),
+                        Map.of("label", "Urgent Alerts", "value", metrics.urgentOpenJobs())
                     ),
-                    "urgentJobs", List.of(
-                        Map.of("id", 1, "vehicle", "BMW X3 - MH01AB1234", "issue", "Brake pad replacement", "priority", "High", "assignedDate", "2024-01-15", "deadline", "2024-01-16"),
-                        Map.of("id", 2, "vehicle", "Honda City - MH02CD5678", "issue", "Oil change & filter replacement", "priority", "Medium", "assignedDate", "2024-01-14", "deadline", "2024-01-17")
-                    )
+                    "urgentJobs", metrics.urgentJobs(5).stream().map(this::jobRow).toList()
                 );
             case "customer":
+                if (userId == null) {
+                    return Map.of("message", "userId is required for the customer dashboard");
+                }
                 return Map.of(
                     "stats", List.of(
-                        Map.of("label", "Active Rentals", "value", 2),
-                        Map.of("label", "Completed Trips", "value", 15),
-                        Map.of("label", "Loyalty Points", "value", 1250)
-                    ),
-                    "activeRentals", List.of(
-                        Map.of("id", 1, "car", "BMW X3", "pickup", "2024-01-15", "return", "2024-01-18", "status", "Active", "location", "Mumbai Central"),
-                        Map.of("id", 2, "car", "Honda City", "pickup", "2024-01-20", "return", "2024-01-22", "status", "Upcoming", "location", "Pune Airport")
+                        Map.of("label", "Active Rentals", "value", metrics.activeRentalsFor(userId)),
+                        Map.of("label", "Completed Trips", "value", metrics.completedTripsFor(userId))
                     )
                 );
             default:
                 return Map.of("message", "No dashboard data for this role" );
         }
     }
+
+    private long utilization() {
+        long fleet = metrics.totalCars();
+        return fleet == 0 ? 0 : Math.round(100.0 * metrics.activeRentals() / fleet);
+    }
+
+    private String revenueTrend(YearMonth month) {
+        double previous = metrics.revenue(month.minusMonths(1));
+        if (previous == 0) {
+            return "No revenue last month";
+        }
+        long change = Math.round(100 * (metrics.revenue(month) - previous) / previous);
+        return (change >= 0 ? "+" : "") + change + "% vs last month";
+    }
+
+    private List<Map<String, Object>> alerts() {
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        if (metrics.urgentOpenJobs() > 0) {
+            alerts.add(Map.of("type", "warning", "title", "Urgent Maintenance",
+                    "description", metrics.urgentOpenJobs() + " high priority jobs are open", "time", "now"));
+        }
+        if (metrics.pendingJobs() > 0) {
+            alerts.add(Map.of("type", "info", "title", "Jobs Awaiting Assignment",
+                    "description", metrics.pendingJobs() + " maintenance jobs are pending", "time", "now"));
+        }
+        return alerts;
+    }
+
+    private Map<String, Object> bookingRow(Booking booking) {
+        String customer = booking.getCustomerEmail() != null ? booking.getCustomerEmail() : String.valueOf(booking.getUserId());
+        return Map.of(
+            "id", booking.getId(),
+            "customer", customer,
+            "car", String.valueOf(booking.getCarId()),
+            "duration", duration(booking),
+            "amount", rupees(booking.getTotalAmount()),
+            "status", String.valueOf(booking.getStatus()));
+    }
+
+    private Map<String, Object> jobRow(Maintenance job) {
+        return Map.of(
+            "id", job.getId(),
+            "vehicle", String.valueOf(job.getVehicleId()),
+            "issue", String.valueOf(job.getIssue()),
+            "priority", String.valueOf(job.getPriority()),
+            "assignedDate", job.getCreatedAt() == null ? "" : Timestamps.utcDate(job.getCreatedAt()).toString(),
+            "deadline", job.getDeadline() == null ? "" : Timestamps.utcDate(job.getDeadline()).toString());
+    }
+
+    private static String duration(Booking booking) {
+        if (booking.getStartDate() == null || booking.getEndDate() == null) {
+            return "";
+        }
+        long days = ChronoUnit.DAYS.between(
+                Timestamps.utcDate(booking.getStartDate()), Timestamps.utcDate(booking.getEndDate()));
+        return Math.max(days, 1) + (days > 1 ? " days" : " day");
+    }
+
+    private static String rupees(double amount) {
+        return ((NumberFormat) RUPEES.clone()).format(amount);
+    }
+
+    private static NumberFormat rupeeFormat() {
+        NumberFormat format = NumberFormat.getCurrencyInstance(Locale.of("en", "IN"));
+        format.setMaximumFractionDigits(0);
+        return format;
+    }
 }
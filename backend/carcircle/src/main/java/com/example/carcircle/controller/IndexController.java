@@ -0,0 +1,47 @@
+package com.example.carcircle.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carcircle.config.MongoIndexInitializer;
+import com.example.carcircle.service.QueryProfiler;
+
+@RestController
+@RequestMapping("/api/admin/indexes")
+public class IndexController {
+    @Autowired
+    private MongoIndexInitializer indexes;
+    @Autowired
+    private QueryProfiler profiler;
+
+    @GetMapping
+    public Map<String, Object> getIndexStatus() {
+        return indexes.status();
+    }
+
+    @PostMapping
+    public List<Map<String, Object>> ensureIndexes() {
+        return indexes.ensureIndexes();
+    }
+
+    @GetMapping("/profiler")
+    public Map<String, Object> getProfilerSettings() {
+        return profiler.settings();
+    }
+
+    // Queries that ran without an index or over the threshold, from the profiler
+    @GetMapping("/slow-queries")
+    public List<Map<String, Object>> getSlowQueries(@RequestParam(defaultValue = "100") int thresholdMs,
+                                                    @RequestParam(defaultValue = "60") int sinceMinutes,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        return profiler.report(thresholdMs, Duration.ofMinutes(sinceMinutes), Math.max(1, Math.min(limit, 500)));
+    }
+}
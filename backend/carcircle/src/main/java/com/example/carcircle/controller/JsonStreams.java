@@ -0,0 +1,59 @@
+package com.example.carcircle.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Writes documents to the response as they come off a Mongo cursor, so memory stays
+// bounded by the cursor batch size rather than the collection size.
+public final class JsonStreams {
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 256;
+
+    private JsonStreams() {}
+
+    public static <T> StreamingResponseBody array(ObjectMapper mapper, Supplier<Stream<T>> source) {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (Stream<T> stream = source.get();
+                 JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.writeStartArray();
+                int written = 0;
+                for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                    writer.writeValue(gen, it.next());
+                    if (++written % FLUSH_EVERY == 0) {
+                        gen.flush();
+                    }
+                }
+                gen.writeEndArray();
+            }
+        };
+    }
+
+    public static <T> StreamingResponseBody ndjson(ObjectMapper mapper, Supplier<Stream<T>> source) {
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (Stream<T> stream = source.get();
+                 JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(null);
+                int written = 0;
+                for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                    writer.writeValue(gen, it.next());
+                    gen.writeRaw('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        gen.flush();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -2,17 +2,32 @@ package com.example.carcircle.controller;
 
 import com.example.carcircle.model.Maintenance;
 import com.example.carcircle.model.MaintenanceRepository;
+import com.example.carcircle.service.MaintenanceDispatcher;
+import com.example.carcircle.service.PartialUpdater;
+import com.example.carcircle.service.Timestamps;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/maintenance")
 public class MaintenanceController {
+    private static final Set<String> PATCHABLE = Set.of(
+            "vehicleId", "customerId", "issue", "priority", "status", "assignedMechanic", "deadline");
+
     @Autowired
     private MaintenanceRepository maintenanceRepo;
+    @Autowired
+    private PartialUpdater partialUpdater;
+    @Autowired
+    private MaintenanceDispatcher dispatcher;
 
     @GetMapping
     public List<Maintenance> getAllMaintenanceJobs() {
@@ -36,8 +51,24 @@ public class MaintenanceController {
             job.setStatus("Pending");
         }
         // Set created timestamp
-        job.setCreatedAt(java.time.LocalDateTime.now().toString());
-        return maintenanceRepo.save(job);
+        job.setCreatedAt(Timestamps.now());
+        // Assign the id up front so the dispatcher can hand the job to a mechanic before the insert
+        if (job.getId() == null || job.getId().isEmpty()) {
+            job.setId(new ObjectId().toHexString());
+        }
+        dispatcher.assignNew(job);
+        try {
+            return maintenanceRepo.save(job);
+        } catch (RuntimeException e) {
+            dispatcher.release(job.getId());
+            throw e;
+        }
+    }
+
+    // Queue depth, wait times and per-mechanic load of the auto-assignment queue
+    @GetMapping("/dispatch")
+    public Map<String, Object> getDispatchStats() {
+        return dispatcher.stats();
     }
 
     @PutMapping("/{id}")
@@ -53,7 +84,7 @@ public class MaintenanceController {
             job.setAssignedMechanic(jobDetails.getAssignedMechanic());
             job.setDeadline(jobDetails.getDeadline());
             if (jobDetails.getStatus() != null && jobDetails.getStatus().equals("Completed")) {
-                job.setCompletedAt(java.time.LocalDateTime.now().toString());
+                job.setCompletedAt(Timestamps.now());
             }
             Maintenance updatedJob = maintenanceRepo.save(job);
             return ResponseEntity.ok(updatedJob);
@@ -62,6 +93,21 @@ public class MaintenanceController {
         }
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchMaintenanceJob(@PathVariable String id, @RequestBody Map<String, Object> fields) {
+        Map<String, Object> alsoSet = new HashMap<>();
+        if ("Completed".equals(fields.get("status"))) {
+            alsoSet.put("completedAt", Timestamps.now());
+        }
+        try {
+            return partialUpdater.patch(Maintenance.class, id, fields, PATCHABLE, PartialUpdater.expectedVersion(fields), alsoSet)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMaintenanceJob(@PathVariable String id) {
         Optional<Maintenance> job = maintenanceRepo.findById(id);
@@ -84,6 +130,18 @@ public class MaintenanceController {
         return maintenanceRepo.findByAssignedMechanic(mechanicId);
     }
 
+    // Open jobs whose deadline has passed (as of now, or ?asOf=), most overdue first
+    @GetMapping("/overdue")
+    public ResponseEntity<?> getOverdueJobs(@RequestParam(required = false) String asOf) {
+        Instant cutoff;
+        try {
+            cutoff = asOf == null ? Timestamps.now() : Timestamps.parse(asOf);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(maintenanceRepo.findByStatusInAndDeadlineBeforeOrderByDeadlineAsc(Maintenance.OPEN_STATUSES, cutoff));
+    }
+
     @GetMapping("/status/{status}")
     public List<Maintenance> getMaintenanceJobsByStatus(@PathVariable String status) {
         return maintenanceRepo.findByStatus(status);
@@ -1,11 +1,22 @@
 package com.example.carcircle.controller;
 
+import com.example.carcircle.model.KeysetCursor;
 import com.example.carcircle.model.Message;
 import com.example.carcircle.model.MessageRepository;
+import com.example.carcircle.service.DashboardMetrics;
+import com.example.carcircle.service.MessagePushService;
+import com.example.carcircle.service.MessageWriteBehind;
+import com.example.carcircle.service.Timestamps;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -13,16 +24,50 @@ import java.util.Optional;
 public class MessageController {
     @Autowired
     private MessageRepository messageRepo;
+    @Autowired
+    private MessagePushService pushService;
+    @Autowired
+    private DashboardMetrics metrics;
+    @Autowired
+    private MessageWriteBehind writeBehind;
+
+    @Value("${carcircle.messages.conversation-page-size:50}")
+    private int defaultConversationPageSize;
+    @Value("${carcircle.messages.max-conversation-page-size:200}")
+    private int maxConversationPageSize;
 
     @GetMapping
-    public List<Message> getAllMessages(@RequestParam(required = false) String role) {
-        if (role != null && !role.isEmpty()) {
-            // For now, return all messages. In a real app, you'd filter by role/user
-            return messageRepo.findAll();
+    public List<Message> getAllMessages(@RequestParam(required = false) String role,
+                                        @RequestParam(required = false) String userId) {
+        String inboxRole = normalizeRole(role);
+        String inboxUser = userId == null || userId.isEmpty() ? null : userId;
+        if (inboxRole != null || inboxUser != null) {
+            return messageRepo.findInbox(inboxUser, inboxRole);
         }
+        // No audience given ("all"): the unfiltered admin view
         return messageRepo.findAll();
     }
 
+    @GetMapping("/unread-count")
+    public Map<String, Object> getUnreadCount(@RequestParam(required = false) String userId,
+                                              @RequestParam(required = false) String role) {
+        return Map.of("unread", metrics.unreadFor(userId, normalizeRole(role)));
+    }
+
+    static String normalizeRole(String role) {
+        if (role == null || role.isBlank() || Message.EVERYONE.equalsIgnoreCase(role)) {
+            return null;
+        }
+        return role.toLowerCase();
+    }
+
+    // Live inbox: new messages for this user, their role, or "all" arrive as SSE events
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(@RequestParam(required = false) String userId,
+                                     @RequestParam(required = false) String role) {
+        return pushService.subscribe(userId, role);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Message> getMessageById(@PathVariable String id) {
         Optional<Message> message = messageRepo.findById(id);
@@ -33,11 +78,21 @@ public class MessageController {
         }
     }
 
+    // With write-behind on, the reply carries the assigned id before the message is in Mongo
     @PostMapping
     public Message sendMessage(@RequestBody Message message) {
+        Message normalized = normalize(message);
+        Message saved = writeBehind.isEnabled() ? writeBehind.enqueue(normalized) : messageRepo.save(normalized);
+        pushService.publish(saved);
+        return saved;
+    }
+
+    // Fills in what older clients leave out and derives the indexed fields; public so the
+    // benchmarks can time it apart from the save
+    public static Message normalize(Message message) {
         // Set timestamp if not provided
-        if (message.getTimestamp() == null || message.getTimestamp().isEmpty()) {
-            message.setTimestamp(java.time.LocalDateTime.now().toString());
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Timestamps.now());
         }
 
         // Handle different message formats
@@ -60,21 +115,47 @@ public class MessageController {
                 message.setMessage(message.getContent());
             }
         }
-
-        return messageRepo.save(message);
+        if (message.getToRole() != null) {
+            message.setToRole(message.getToRole().toLowerCase());
+        }
+        message.setConversationKey(Message.conversationKeyOf(message.getSenderId(), message.getReceiverId()));
+        return message;
     }
 
     @PutMapping("/{id}/read")
     public ResponseEntity<Message> markMessageAsRead(@PathVariable String id) {
-        Optional<Message> optionalMessage = messageRepo.findById(id);
-        if (optionalMessage.isPresent()) {
-            Message message = optionalMessage.get();
-            message.setRead(true);
-            Message updatedMessage = messageRepo.save(message);
-            return ResponseEntity.ok(updatedMessage);
-        } else {
+        Message updatedMessage = messageRepo.markRead(id);
+        if (updatedMessage == null) {
             return ResponseEntity.notFound().build();
         }
+        metrics.messagesRead(List.of(id));
+        return ResponseEntity.ok(updatedMessage);
+    }
+
+    // Either {"ids": [...]} or {"receiverId": "...", "before": "<timestamp>"}; "before" is optional
+    @PutMapping("/read")
+    public ResponseEntity<?> markMessagesAsRead(@RequestBody BulkRequest request) {
+        long updated;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            updated = messageRepo.markRead(request.getIds());
+            metrics.messagesRead(request.getIds());
+        } else if (request.getReceiverId() != null && !request.getReceiverId().isEmpty()) {
+            updated = messageRepo.markReadForReceiver(request.getReceiverId(), request.getBefore());
+            metrics.messagesReadFor(request.getReceiverId(), request.getBefore());
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide ids or receiverId"));
+        }
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<?> deleteMessages(@RequestBody BulkRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide ids"));
+        }
+        long deleted = messageRepo.deleteByIds(request.getIds());
+        metrics.messagesDeleted(request.getIds());
+        return ResponseEntity.ok(Map.of("deleted", deleted));
     }
 
     @DeleteMapping("/{id}")
@@ -99,8 +180,47 @@ public class MessageController {
         return messageRepo.findByReceiverId(receiverId);
     }
 
+    // Messages exchanged between exactly these two users, newest first; follow nextCursor for older ones
     @GetMapping("/conversation")
-    public List<Message> getConversation(@RequestParam String user1, @RequestParam String user2) {
-        return messageRepo.findBySenderIdOrReceiverId(user1, user2);
+    public ResponseEntity<?> getConversation(@RequestParam String user1, @RequestParam String user2,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
+        String key = Message.conversationKeyOf(user1, user2);
+        if (key == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "A conversation needs two individual users"));
+        }
+        KeysetCursor before;
+        try {
+            before = KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        int pageSize = Math.max(1, Math.min(limit == null ? defaultConversationPageSize : limit, maxConversationPageSize));
+        List<Message> rows = messageRepo.findConversationPage(key, before, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Message> messages = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Message last = messages.get(messages.size() - 1);
+            nextCursor = new KeysetCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("messages", messages);
+        page.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(page);
+    }
+
+    public static class BulkRequest {
+        private List<String> ids;
+        private String receiverId;
+        private Instant before;
+
+        public List<String> getIds() { return ids; }
+        public void setIds(List<String> ids) { this.ids = ids; }
+        public String getReceiverId() { return receiverId; }
+        public void setReceiverId(String receiverId) { this.receiverId = receiverId; }
+        public Instant getBefore() { return before; }
+        public void setBefore(Instant before) { this.before = before; }
     }
 }
@@ -1,32 +1,49 @@
 package com.example.carcircle.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.carcircle.auth.Session;
+import com.example.carcircle.auth.SessionStore;
 import com.example.carcircle.auth.User;
 
+// The signed-in caller's profile, looked up by bearer token through SessionStore
 @RestController
 @RequestMapping("/api/user")
 public class ProfileController {
-    // This is ONLY for demo. In real app you use session/JWT/current principal, per logged in user.
-    private static User currentUser = null;
+    @Autowired
+    private SessionStore sessionStore;
 
     @GetMapping("/profile")
-    public User getProfile() {
-        return currentUser;
+    public ResponseEntity<?> getProfile(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        return sessionStore.find(authorization)
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok(session.profile()))
+                .orElse(ResponseEntity.status(401).body("Invalid or expired token"));
     }
+
     @PostMapping("/profile")
-    public User updateProfile(@RequestBody User newUser) {
-        // Overwrite fields for demo
-        currentUser = newUser;
-        return currentUser;
+    public ResponseEntity<?> updateProfile(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                           @RequestBody User newUser) {
+        try {
+            return sessionStore.updateProfile(authorization, newUser)
+                    .map(Session::profile)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(401).body("Invalid or expired token"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
-    // For demo: setProfile (simulate login flow)
+
+    // Older clients still call this after login; same as POST /profile
     @PostMapping("/setProfile")
-    public void setProfile(@RequestBody User user) {
-        currentUser = user;
+    public ResponseEntity<?> setProfile(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                        @RequestBody User user) {
+        return updateProfile(authorization, user);
     }
 }
@@ -0,0 +1,61 @@
+package com.example.carcircle.controller;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingFilter;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.Message;
+import com.example.carcircle.model.ReactiveBookingRepository;
+import com.example.carcircle.model.ReactiveCarRepository;
+import com.example.carcircle.model.ReactiveMaintenanceRepository;
+import com.example.carcircle.model.ReactiveMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+// NDJSON variants of the list endpoints backed by the reactive Mongo driver. Spring MVC writes
+// each document as it arrives and only requests the next one once it has been sent, so the
+// first line goes out after the first cursor batch and nothing holds the whole collection.
+@RestController
+@RequestMapping(value = "/api/reactive", produces = JsonStreams.NDJSON)
+public class ReactiveController {
+    @Autowired
+    private ReactiveCarRepository carRepo;
+    @Autowired
+    private ReactiveBookingRepository bookingRepo;
+    @Autowired
+    private ReactiveMaintenanceRepository maintenanceRepo;
+    @Autowired
+    private ReactiveMessageRepository messageRepo;
+
+    @GetMapping("/cars")
+    public Flux<Car> getAllCars() {
+        return carRepo.findAll();
+    }
+
+    // Same filters and order as GET /api/bookings
+    @GetMapping("/bookings")
+    public Flux<Booking> getAllBookings(BookingFilter filter) {
+        return bookingRepo.streamAll(filter);
+    }
+
+    @GetMapping("/maintenance")
+    public Flux<Maintenance> getAllMaintenanceJobs(@RequestParam(required = false) String status) {
+        return status == null || status.isBlank() ? maintenanceRepo.findAll() : maintenanceRepo.findByStatus(status);
+    }
+
+    // Same audience rules as GET /api/messages
+    @GetMapping("/messages")
+    public Flux<Message> getAllMessages(@RequestParam(required = false) String role,
+                                        @RequestParam(required = false) String userId) {
+        String inboxRole = MessageController.normalizeRole(role);
+        String inboxUser = userId == null || userId.isEmpty() ? null : userId;
+        if (inboxRole != null || inboxUser != null) {
+            return messageRepo.findInbox(inboxUser, inboxRole);
+        }
+        return messageRepo.findAll();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.carcircle.controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carcircle.config.VirtualThreadDiagnostics;
+
+@RestController
+@RequestMapping("/api/runtime")
+public class RuntimeController {
+    @Autowired
+    private VirtualThreadDiagnostics diagnostics;
+
+    @GetMapping("/threads")
+    public Map<String, Object> getThreads() {
+        Map<String, Object> stats = diagnostics.stats();
+        // ThreadMXBean only sees platform threads (carriers included), which is the number that matters here
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        stats.put("platformThreads", threads.getThreadCount());
+        stats.put("peakPlatformThreads", threads.getPeakThreadCount());
+        return stats;
+    }
+}
@@ -2,16 +2,51 @@ package com.example.carcircle.controller;
 
 import com.example.carcircle.model.Car;
 import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.model.CarSearch;
+import com.example.carcircle.service.BookingAvailabilityIndex;
+import com.example.carcircle.service.BulkImporter;
+import com.example.carcircle.service.CarSearchIndex;
+import com.example.carcircle.service.Timestamps;
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.PartialUpdater;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/vehicles")
 public class VehicleController {
+    private static final Set<String> PATCHABLE = Set.of("make", "model", "year", "price");
+    private static final List<String> CSV_COLUMNS = List.of("id", "make", "model", "year", "price");
+
     @Autowired
     private CarRepository carRepo;
+    @Autowired
+    private BookingAvailabilityIndex availability;
+    @Autowired
+    private PartialUpdater partialUpdater;
+    @Autowired
+    private EntityCache<Car> carCache;
+    @Autowired
+    private BulkImporter bulkImporter;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CarSearchIndex carSearch;
 
     @GetMapping
     public List<Car> getAll() {
@@ -23,15 +58,106 @@ public class VehicleController {
         return carRepo.save(c);
     }
 
+    // Prefix/range filters, sorting, paging and make/price facets, all from the in-memory index
+    @GetMapping("/search")
+    public ResponseEntity<?> search(CarSearch query) {
+        if (!carSearch.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Search index is still loading"));
+        }
+        return ResponseEntity.ok(carSearch.search(query));
+    }
+
+    // One car per NDJSON line, or a CSV with a header row; see BulkImporter
+    @PostMapping(value = "/bulk", consumes = {JsonStreams.NDJSON, CsvStreams.CSV})
+    public Map<String, Object> bulkImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                          InputStream body) throws IOException {
+        return bulkImporter.importRows(body, CsvStreams.isCsv(contentType), Car.class, VehicleController::validate);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(CsvStreams.CSV))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=vehicles.csv")
+                    .body(CsvStreams.csv(CSV_COLUMNS,
+                            car -> Arrays.asList(car.getId(), car.getMake(), car.getModel(), car.getYear(), car.getPrice()),
+                            carRepo::streamAllBy));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(JsonStreams.NDJSON))
+                .body(JsonStreams.ndjson(objectMapper, carRepo::streamAllBy));
+    }
+
+    private static String validate(Car car) {
+        if (car.getMake() == null || car.getMake().isBlank() || car.getModel() == null || car.getModel().isBlank()) {
+            return "make and model are required";
+        }
+        int latest = Year.now().getValue() + 1;
+        if (car.getYear() < 1886 || car.getYear() > latest) {
+            return "year must be between 1886 and " + latest;
+        }
+        if (car.getPrice() < 0) {
+            return "price cannot be negative";
+        }
+        return null;
+    }
+
+    // Answered entirely from the in-memory availability index
+    @GetMapping("/available")
+    public ResponseEntity<?> getAvailable(@RequestParam String from, @RequestParam String to) {
+        long start;
+        long end;
+        try {
+            start = Timestamps.toEpochMillis(from);
+            end = Timestamps.toEpochMillis(to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (end <= start) {
+            return ResponseEntity.badRequest().body(Map.of("error", "'to' must be after 'from'"));
+        }
+        if (!availability.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Availability index is still loading"));
+        }
+        return ResponseEntity.ok(availability.availableCars(start, end));
+    }
+
     @GetMapping("/{id}")
     public Optional<Car> get(@PathVariable String id) {
-        return carRepo.findById(id);
+        return carCache.get(id, carRepo::findById);
     }
 
+    // Full update, but still a single $set of every field rather than a blind save over the document
     @PutMapping("/{id}")
-    public Car update(@PathVariable String id, @RequestBody Car updated) {
-        updated.setId(id);
-        return carRepo.save(updated);
+    public ResponseEntity<?> update(@PathVariable String id, @RequestBody Car updated) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("make", updated.getMake());
+        fields.put("model", updated.getModel());
+        fields.put("year", updated.getYear());
+        fields.put("price", updated.getPrice());
+        return patchCar(id, fields, updated.getVersion());
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patch(@PathVariable String id, @RequestBody Map<String, Object> fields) {
+        try {
+            return patchCar(id, fields, PartialUpdater.expectedVersion(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> patchCar(String id, Map<String, Object> fields, Long expectedVersion) {
+        try {
+            return partialUpdater.patch(Car.class, id, fields, PATCHABLE, expectedVersion, Map.of())
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/{id}")
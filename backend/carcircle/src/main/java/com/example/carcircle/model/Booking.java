@@ -1,25 +1,46 @@
 package com.example.carcircle.model;
 
+import java.time.Instant;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.example.carcircle.service.Timestamps;
+
 @Document(collection = "bookings")
+@CompoundIndexes({
+    // Keyset paging walks (createdAt, _id) newest first, optionally narrowed by one equality filter
+    @CompoundIndex(name = "created_id", def = "{'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "status_created_id", def = "{'status': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "user_created_id", def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "car_created_id", def = "{'carId': 1, 'createdAt': -1, '_id': -1}"),
+    // Window queries: startDate < to is the range scan, endDate > from is checked from the index
+    @CompoundIndex(name = "start_end", def = "{'startDate': 1, 'endDate': 1}"),
+    // streamByCarIdAndStatusIn, used when the availability index reloads one car
+    @CompoundIndex(name = "car_status", def = "{'carId': 1, 'status': 1}")
+})
 public class Booking {
     @Id
     private String id;
+    // Optimistic concurrency: bumped on every write, checked when a client sends it back
+    @Version
+    private Long version;
     private String carId;
     private String userId;
-    private String startDate;
-    private String endDate;
+    private Instant startDate;
+    private Instant endDate;
     private String status; // e.g., "Pending", "Confirmed", "Active", "Completed", "Cancelled"
     private double totalAmount;
     private String pickupLocation;
     private String customerEmail;
-    private String createdAt;
-    private String updatedAt;
+    private Instant createdAt;
+    private Instant updatedAt;
 
     public Booking() {}
-    public Booking(String id, String carId, String userId, String startDate, String endDate, String status, double totalAmount, String pickupLocation, String customerEmail) {
+    public Booking(String id, String carId, String userId, Instant startDate, Instant endDate, String status, double totalAmount, String pickupLocation, String customerEmail) {
         this.id = id;
         this.carId = carId;
         this.userId = userId;
@@ -29,31 +50,33 @@ public class Booking {
         this.totalAmount = totalAmount;
         this.pickupLocation = pickupLocation;
         this.customerEmail = customerEmail;
-        this.createdAt = java.time.LocalDateTime.now().toString();
-        this.updatedAt = java.time.LocalDateTime.now().toString();
+        this.createdAt = Timestamps.now();
+        this.updatedAt = Timestamps.now();
     }
 
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getCarId() { return carId; }
     public void setCarId(String carId) { this.carId = carId; }
     public String getUserId() { return userId; }
     public void setUserId(String userId) { this.userId = userId; }
-    public String getStartDate() { return startDate; }
-    public void setStartDate(String startDate) { this.startDate = startDate; }
-    public String getEndDate() { return endDate; }
-    public void setEndDate(String endDate) { this.endDate = endDate; }
+    public Instant getStartDate() { return startDate; }
+    public void setStartDate(Instant startDate) { this.startDate = startDate; }
+    public Instant getEndDate() { return endDate; }
+    public void setEndDate(Instant endDate) { this.endDate = endDate; }
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; this.updatedAt = java.time.LocalDateTime.now().toString(); }
+    public void setStatus(String status) { this.status = status; this.updatedAt = Timestamps.now(); }
     public double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; this.updatedAt = java.time.LocalDateTime.now().toString(); }
+    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; this.updatedAt = Timestamps.now(); }
     public String getPickupLocation() { return pickupLocation; }
     public void setPickupLocation(String pickupLocation) { this.pickupLocation = pickupLocation; }
     public String getCustomerEmail() { return customerEmail; }
     public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
-    public String getUpdatedAt() { return updatedAt; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
 }
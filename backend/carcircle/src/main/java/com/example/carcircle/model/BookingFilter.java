@@ -0,0 +1,29 @@
+package com.example.carcircle.model;
+
+public class BookingFilter {
+    private String status;
+    private String userId;
+    private String carId;
+
+    public BookingFilter() {}
+    public BookingFilter(String status, String userId, String carId) {
+        this.status = status;
+        this.userId = userId;
+        this.carId = carId;
+    }
+
+    public boolean isEmpty() {
+        return isBlank(status) && isBlank(userId) && isBlank(carId);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    public String getCarId() { return carId; }
+    public void setCarId(String carId) { this.carId = carId; }
+}
@@ -1,6 +1,14 @@
 package com.example.carcircle.model;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends MongoRepository<Booking, String> {
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
+    Stream<Booking> streamAllBy();
+    Stream<Booking> streamByStatusIn(Collection<String> statuses);
+    Stream<Booking> streamByCarIdAndStatusIn(String carId, Collection<String> statuses);
+    // Bookings overlapping [from, to): starts before the window ends and ends after it starts
+    Stream<Booking> streamByStartDateLessThanAndEndDateGreaterThanOrderByStartDateAsc(Instant to, Instant from);
 }
@@ -0,0 +1,12 @@
+package com.example.carcircle.model;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+    // Newest first, ordered by (createdAt, id); pass the cursor of the last row to get the next page.
+    List<Booking> findPage(BookingFilter filter, KeysetCursor after, int limit);
+
+    // Lazily iterates the Mongo cursor; callers must close the stream.
+    Stream<Booking> streamAll(BookingFilter filter);
+}
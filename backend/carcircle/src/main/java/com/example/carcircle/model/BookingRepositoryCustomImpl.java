@@ -0,0 +1,87 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final MongoTemplate mongoTemplate;
+
+    public BookingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Booking> findPage(BookingFilter filter, KeysetCursor after, int limit) {
+        List<Criteria> criteria = filterCriteria(filter);
+        if (after != null) {
+            criteria.add(after(after));
+        }
+        Query query = new Query(combine(criteria)).with(NEWEST_FIRST).limit(limit);
+        return mongoTemplate.find(query, Booking.class);
+    }
+
+    // Rows after the cursor in NEWEST_FIRST order. Mongo sorts a null or missing createdAt below
+    // every date, so undated legacy rows are the last group: a dated cursor still has to reach
+    // them, and an undated one pages through them by id.
+    private static Criteria after(KeysetCursor cursor) {
+        Criteria sameTimeOlderId = new Criteria().andOperator(
+                where("createdAt").is(cursor.getSortValue()), where("id").lt(cursor.getId()));
+        if (cursor.getSortValue() == null) {
+            return sameTimeOlderId;
+        }
+        return new Criteria().orOperator(
+                where("createdAt").lt(cursor.getSortValue()), sameTimeOlderId, where("createdAt").is(null));
+    }
+
+    @Override
+    public Stream<Booking> streamAll(BookingFilter filter) {
+        return mongoTemplate.stream(streamQuery(filter), Booking.class);
+    }
+
+    // Shared with the reactive repository so both stream the same rows in the same order
+    static Query streamQuery(BookingFilter filter) {
+        return new Query(combine(filterCriteria(filter))).with(NEWEST_FIRST).cursorBatchSize(STREAM_BATCH_SIZE);
+    }
+
+    private static List<Criteria> filterCriteria(BookingFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter == null) {
+            return criteria;
+        }
+        if (hasText(filter.getStatus())) {
+            criteria.add(where("status").is(filter.getStatus()));
+        }
+        if (hasText(filter.getUserId())) {
+            criteria.add(where("userId").is(filter.getUserId()));
+        }
+        if (hasText(filter.getCarId())) {
+            criteria.add(where("carId").is(filter.getCarId()));
+        }
+        return criteria;
+    }
+
+    private static Criteria combine(List<Criteria> criteria) {
+        if (criteria.isEmpty()) {
+            return new Criteria();
+        }
+        if (criteria.size() == 1) {
+            return criteria.get(0);
+        }
+        return new Criteria().andOperator(criteria);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.carcircle.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "cars")
 public class Car {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String make;
     private String model;
     private int year;
@@ -22,6 +25,8 @@ public class Car {
     }
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getMake() { return make; }
     public void setMake(String make) { this.make = make; }
     public String getModel() { return model; }
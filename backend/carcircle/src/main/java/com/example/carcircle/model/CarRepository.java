@@ -1,5 +1,8 @@
 package com.example.carcircle.model;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.util.stream.Stream;
 
-public interface CarRepository extends MongoRepository<Car, String> {}
+public interface CarRepository extends MongoRepository<Car, String> {
+    Stream<Car> streamAllBy();
+}
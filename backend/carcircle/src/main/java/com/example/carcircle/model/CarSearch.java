@@ -0,0 +1,46 @@
+package com.example.carcircle.model;
+
+// Query parameters of GET /api/vehicles/search. Text filters are case-insensitive prefixes;
+// q matches a prefix of either make or model. Ranges are inclusive and open when unset.
+public class CarSearch {
+    private String q;
+    private String make;
+    private String model;
+    private Integer minYear;
+    private Integer maxYear;
+    private Double minPrice;
+    private Double maxPrice;
+    private String sort = "make"; // "make", "year" or "price"
+    private String order = "asc";
+    private int page = 0;
+    private int size = 20;
+
+    public CarSearch() {}
+
+    public boolean isDescending() {
+        return "desc".equalsIgnoreCase(order);
+    }
+
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+    public String getMake() { return make; }
+    public void setMake(String make) { this.make = make; }
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
+    public Integer getMinYear() { return minYear; }
+    public void setMinYear(Integer minYear) { this.minYear = minYear; }
+    public Integer getMaxYear() { return maxYear; }
+    public void setMaxYear(Integer maxYear) { this.maxYear = maxYear; }
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+    public Double getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Double maxPrice) { this.maxPrice = maxPrice; }
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+    public String getOrder() { return order; }
+    public void setOrder(String order) { this.order = order; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -0,0 +1,49 @@
+package com.example.carcircle.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset position: the sort value and id of the last row on the previous page.
+public class KeysetCursor {
+    private static final String SEPARATOR = "\n";
+
+    private final Instant sortValue;
+    private final String id;
+
+    public KeysetCursor(Instant sortValue, String id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        int split = raw.indexOf(SEPARATOR);
+        if (split < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        String sortValue = raw.substring(0, split);
+        try {
+            return new KeysetCursor(sortValue.isEmpty() ? null : Instant.parse(sortValue), raw.substring(split + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = (sortValue == null ? "" : sortValue.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getSortValue() { return sortValue; }
+    public String getId() { return id; }
+}
@@ -1,25 +1,44 @@
 package com.example.carcircle.model;
 
+import java.time.Instant;
+import java.util.Set;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.example.carcircle.service.Timestamps;
+
 @Document(collection = "maintenance")
+@CompoundIndexes({
+    // Overdue lookups: open statuses, deadline ascending; also serves findByStatus
+    @CompoundIndex(name = "status_deadline", def = "{'status': 1, 'deadline': 1}"),
+    @CompoundIndex(name = "customer", def = "{'customerId': 1}"),
+    @CompoundIndex(name = "mechanic_status", def = "{'assignedMechanic': 1, 'status': 1}"),
+    @CompoundIndex(name = "priority_status", def = "{'priority': 1, 'status': 1}")
+})
 public class Maintenance {
+    public static final Set<String> OPEN_STATUSES = Set.of("Pending", "In Progress");
+
     @Id
     private String id;
+    @Version
+    private Long version;
     private String vehicleId;
     private String customerId;
     private String issue;
     private String priority; // "Low", "Medium", "High", "Urgent"
     private String status; // "Pending", "In Progress", "Completed", "Cancelled"
     private String assignedMechanic;
-    private String createdAt;
-    private String deadline;
-    private String completedAt;
+    private Instant createdAt;
+    private Instant deadline;
+    private Instant completedAt;
 
     public Maintenance() {}
 
-    public Maintenance(String id, String vehicleId, String customerId, String issue, String priority, String status, String assignedMechanic, String deadline) {
+    public Maintenance(String id, String vehicleId, String customerId, String issue, String priority, String status, String assignedMechanic, Instant deadline) {
         this.id = id;
         this.vehicleId = vehicleId;
         this.customerId = customerId;
@@ -28,12 +47,14 @@ public class Maintenance {
         this.status = status;
         this.assignedMechanic = assignedMechanic;
         this.deadline = deadline;
-        this.createdAt = java.time.LocalDateTime.now().toString();
+        this.createdAt = Timestamps.now();
     }
 
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 
     public String getVehicleId() { return vehicleId; }
     public void setVehicleId(String vehicleId) { this.vehicleId = vehicleId; }
@@ -53,12 +74,12 @@ public class Maintenance {
     public String getAssignedMechanic() { return assignedMechanic; }
     public void setAssignedMechanic(String assignedMechanic) { this.assignedMechanic = assignedMechanic; }
 
-    public String getCreatedAt() { return createdAt; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
-    public String getDeadline() { return deadline; }
-    public void setDeadline(String deadline) { this.deadline = deadline; }
+    public Instant getDeadline() { return deadline; }
+    public void setDeadline(Instant deadline) { this.deadline = deadline; }
 
-    public String getCompletedAt() { return completedAt; }
-    public void setCompletedAt(String completedAt) { this.completedAt = completedAt; }
+    public Instant getCompletedAt() { return completedAt; }
+    public void setCompletedAt(Instant completedAt) { this.completedAt = completedAt; }
 }
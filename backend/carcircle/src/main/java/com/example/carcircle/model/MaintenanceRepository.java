@@ -1,6 +1,8 @@
 package com.example.carcircle.model;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface MaintenanceRepository extends MongoRepository<Maintenance, String> {
@@ -8,4 +10,5 @@ public interface MaintenanceRepository extends MongoRepository<Maintenance, Stri
     List<Maintenance> findByAssignedMechanic(String assignedMechanic);
     List<Maintenance> findByStatus(String status);
     List<Maintenance> findByPriority(String priority);
+    List<Maintenance> findByStatusInAndDeadlineBeforeOrderByDeadlineAsc(Collection<String> statuses, Instant asOf);
 }
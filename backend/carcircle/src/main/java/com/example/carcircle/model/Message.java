@@ -1,17 +1,36 @@
 package com.example.carcircle.model;
 
+import java.time.Instant;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.example.carcircle.service.Timestamps;
+
 @Document(collection = "messages")
+@CompoundIndexes({
+    @CompoundIndex(name = "conversation_timestamp_id", def = "{'conversationKey': 1, 'timestamp': -1, '_id': -1}"),
+    // Inbox lookups: direct messages by receiverId, role broadcasts by toRole, each optionally unread-only
+    @CompoundIndex(name = "receiver_read_timestamp", def = "{'receiverId': 1, 'read': 1, 'timestamp': -1}"),
+    @CompoundIndex(name = "role_read_timestamp", def = "{'toRole': 1, 'read': 1, 'timestamp': -1}"),
+    // findBySenderId (outbox) and findByRead
+    @CompoundIndex(name = "sender_timestamp", def = "{'senderId': 1, 'timestamp': -1}"),
+    @CompoundIndex(name = "read_timestamp", def = "{'read': 1, 'timestamp': -1}")
+})
 public class Message {
+    public static final String EVERYONE = "all";
+
     @Id
     private String id;
     private String senderId;
     private String receiverId;
     private String message;
-    private String timestamp;
+    private Instant timestamp;
     private boolean read;
+    // Sorted "userA|userB" pair shared by both directions of a two-party thread
+    private String conversationKey;
 
     // Additional fields for enhanced messaging
     private String from;
@@ -28,8 +47,28 @@ public class Message {
         this.senderId = senderId;
         this.receiverId = receiverId;
         this.message = message;
-        this.timestamp = java.time.LocalDateTime.now().toString();
+        this.timestamp = Timestamps.now();
         this.read = false;
+        this.conversationKey = conversationKeyOf(senderId, receiverId);
+    }
+
+    public static String conversationKeyOf(String user1, String user2) {
+        if (user1 == null || user2 == null || EVERYONE.equals(user1) || EVERYONE.equals(user2)) {
+            return null;
+        }
+        return user1.compareTo(user2) <= 0 ? user1 + "|" + user2 : user2 + "|" + user1;
+    }
+
+    // Who the message is for: a single user ("user:<id>"), a role ("role:<role>") or everyone.
+    // A direct receiverId wins over toRole, so every message lands in exactly one audience.
+    public String audience() {
+        if (receiverId != null && !EVERYONE.equals(receiverId)) {
+            return "user:" + receiverId;
+        }
+        if (toRole != null && !EVERYONE.equals(toRole)) {
+            return "role:" + toRole;
+        }
+        return EVERYONE;
     }
 
     // Getters and Setters
@@ -45,12 +84,15 @@ public class Message {
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
 
-    public String getTimestamp() { return timestamp; }
-    public void setTimestamp(String timestamp) { this.timestamp = timestamp; }
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
 
     public boolean isRead() { return read; }
     public void setRead(boolean read) { this.read = read; }
 
+    public String getConversationKey() { return conversationKey; }
+    public void setConversationKey(String conversationKey) { this.conversationKey = conversationKey; }
+
     // Additional getters and setters
     public String getFrom() { return from; }
     public void setFrom(String from) { this.from = from; }
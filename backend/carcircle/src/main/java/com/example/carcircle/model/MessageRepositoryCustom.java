@@ -0,0 +1,26 @@
+package com.example.carcircle.model;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface MessageRepositoryCustom {
+    // Newest first, ordered by (timestamp, id); pass the cursor of the last row to go further back.
+    List<Message> findConversationPage(String conversationKey, KeysetCursor before, int limit);
+
+    // Direct messages to userId, broadcasts to role, and messages for everyone; newest first.
+    List<Message> findInbox(String userId, String role);
+
+    // Single round trip: flips read and returns the updated message, or null if it doesn't exist.
+    Message markRead(String id);
+
+    // The bulk operations below each issue one updateMany/deleteMany and return the count affected.
+    long markRead(Collection<String> ids);
+
+    long markReadForReceiver(String receiverId, Instant before);
+
+    long deleteByIds(Collection<String> ids);
+
+    // Stamps conversationKey on messages saved before the field existed; returns the number updated.
+    long backfillConversationKeys();
+}
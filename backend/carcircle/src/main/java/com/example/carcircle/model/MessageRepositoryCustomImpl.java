@@ -0,0 +1,103 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class MessageRepositoryCustomImpl implements MessageRepositoryCustom {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private static final Update MARK_READ = new Update().set("read", true);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MessageRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Message> findConversationPage(String conversationKey, KeysetCursor before, int limit) {
+        Criteria criteria = where("conversationKey").is(conversationKey);
+        if (before != null) {
+            criteria = criteria.orOperator(
+                    where("timestamp").lt(before.getSortValue()),
+                    new Criteria().andOperator(where("timestamp").is(before.getSortValue()), where("id").lt(before.getId())));
+        }
+        Query query = new Query(criteria).with(NEWEST_FIRST).limit(limit);
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    @Override
+    public List<Message> findInbox(String userId, String role) {
+        return mongoTemplate.find(inboxQuery(userId, role), Message.class);
+    }
+
+    static Query inboxQuery(String userId, String role) {
+        // Mirrors Message.audience(): toRole only applies when there is no direct receiver
+        Criteria noDirectReceiver = where("receiverId").in(null, Message.EVERYONE);
+        List<Criteria> audiences = new ArrayList<>();
+        if (userId != null) {
+            audiences.add(where("receiverId").is(userId));
+        }
+        if (role != null) {
+            audiences.add(new Criteria().andOperator(noDirectReceiver, where("toRole").is(role)));
+        }
+        audiences.add(new Criteria().andOperator(noDirectReceiver, where("toRole").in(null, Message.EVERYONE)));
+        return new Query(new Criteria().orOperator(audiences)).with(NEWEST_FIRST);
+    }
+
+    @Override
+    public Message markRead(String id) {
+        return mongoTemplate.findAndModify(new Query(where("id").is(id)), MARK_READ,
+                FindAndModifyOptions.options().returnNew(true), Message.class);
+    }
+
+    @Override
+    public long markRead(Collection<String> ids) {
+        Query query = new Query(where("id").in(ids).and("read").is(false));
+        return mongoTemplate.updateMulti(query, MARK_READ, Message.class).getModifiedCount();
+    }
+
+    @Override
+    public long markReadForReceiver(String receiverId, Instant before) {
+        Criteria criteria = where("receiverId").is(receiverId).and("read").is(false);
+        if (before != null) {
+            criteria = criteria.and("timestamp").lte(before);
+        }
+        return mongoTemplate.updateMulti(new Query(criteria), MARK_READ, Message.class).getModifiedCount();
+    }
+
+    @Override
+    public long deleteByIds(Collection<String> ids) {
+        return mongoTemplate.remove(new Query(where("id").in(ids)), Message.class).getDeletedCount();
+    }
+
+    @Override
+    public long backfillConversationKeys() {
+        Query legacy = new Query(new Criteria().andOperator(
+                where("conversationKey").exists(false),
+                where("senderId").nin(null, "all"),
+                where("receiverId").nin(null, "all")));
+        // Computed server-side in one pipeline update rather than a read/rewrite per message
+        AggregationUpdate setKey = AggregationUpdate.update()
+                .set("conversationKey").toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("senderId").lessThanEqualTo("receiverId"))
+                        .then(StringOperators.valueOf("senderId").concat("|").concatValueOf("receiverId"))
+                        .otherwise(StringOperators.valueOf("receiverId").concat("|").concatValueOf("senderId")));
+        return mongoTemplate.updateMulti(legacy, setKey, Message.class).getModifiedCount();
+    }
+}
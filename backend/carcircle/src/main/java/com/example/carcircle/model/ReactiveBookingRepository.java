@@ -0,0 +1,6 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveBookingRepository extends ReactiveMongoRepository<Booking, String>, ReactiveBookingRepositoryCustom {
+}
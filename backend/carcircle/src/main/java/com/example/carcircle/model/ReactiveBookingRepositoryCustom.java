@@ -0,0 +1,8 @@
+package com.example.carcircle.model;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveBookingRepositoryCustom {
+    // Same rows and order as BookingRepository.streamAll; the cursor advances only as fast as the subscriber requests
+    Flux<Booking> streamAll(BookingFilter filter);
+}
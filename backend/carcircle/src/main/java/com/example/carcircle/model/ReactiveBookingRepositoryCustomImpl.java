@@ -0,0 +1,17 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+public class ReactiveBookingRepositoryCustomImpl implements ReactiveBookingRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveBookingRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Booking> streamAll(BookingFilter filter) {
+        return mongoTemplate.find(BookingRepositoryCustomImpl.streamQuery(filter), Booking.class);
+    }
+}
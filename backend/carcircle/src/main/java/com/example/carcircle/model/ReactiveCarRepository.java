@@ -0,0 +1,7 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+// Non-blocking view of the cars collection for the /api/reactive endpoints; writes stay on CarRepository.
+public interface ReactiveCarRepository extends ReactiveMongoRepository<Car, String> {
+}
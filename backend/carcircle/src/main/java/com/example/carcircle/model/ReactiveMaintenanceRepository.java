@@ -0,0 +1,8 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveMaintenanceRepository extends ReactiveMongoRepository<Maintenance, String> {
+    Flux<Maintenance> findByStatus(String status);
+}
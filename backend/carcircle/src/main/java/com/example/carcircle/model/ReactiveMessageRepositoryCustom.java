@@ -0,0 +1,8 @@
+package com.example.carcircle.model;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveMessageRepositoryCustom {
+    // Same audience rules and order as MessageRepository.findInbox
+    Flux<Message> findInbox(String userId, String role);
+}
@@ -0,0 +1,17 @@
+package com.example.carcircle.model;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+public class ReactiveMessageRepositoryCustomImpl implements ReactiveMessageRepositoryCustom {
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveMessageRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Message> findInbox(String userId, String role) {
+        return mongoTemplate.find(MessageRepositoryCustomImpl.inboxQuery(userId, role), Message.class);
+    }
+}
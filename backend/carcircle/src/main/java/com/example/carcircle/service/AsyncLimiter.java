@@ -0,0 +1,94 @@
+package com.example.carcircle.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Caps concurrent work without parking a thread per waiter: acquire() hands back a future
+// that completes once a permit is free. Waiters beyond maxQueued are rejected at once, and
+// queued ones are rejected after queueTimeout. Every successful acquire must be paired
+// with exactly one release().
+public class AsyncLimiter {
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int inFlight;
+
+    public AsyncLimiter(int maxInFlight, int maxQueued, Duration queueTimeout) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+    }
+
+    public CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter;
+        lock.lock();
+        try {
+            if (inFlight < maxInFlight) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiters.size() >= maxQueued) {
+                throw new RejectedExecutionException("Too many requests waiting");
+            }
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture.delayedExecutor(queueTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            lock.lock();
+            try {
+                waiters.remove(waiter);
+            } finally {
+                lock.unlock();
+            }
+            waiter.completeExceptionally(new RejectedExecutionException("Timed out waiting for a free slot"));
+        });
+        return waiter;
+    }
+
+    public void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            lock.lock();
+            try {
+                next = waiters.pollFirst();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Hand the permit straight to the next waiter; if it already timed out, try the one after
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
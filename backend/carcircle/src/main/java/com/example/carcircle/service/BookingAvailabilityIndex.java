@@ -0,0 +1,352 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// In-memory view of which cars are booked when. Each car holds its blocking bookings as
+// start-sorted arrays plus a running maximum of end times, so "does [from, to) overlap
+// anything?" is one binary search and one comparison. Kept current by Mongo save/delete
+// events; Mongo is only read once, at startup.
+@Component
+public class BookingAvailabilityIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookingAvailabilityIndex.class);
+    private static final long ONE_DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Bookings in any other status ("Completed", "Cancelled") no longer hold the car
+    public static final Set<String> BLOCKING_STATUSES = Set.of("Pending", "Confirmed", "Active");
+
+    private final BookingRepository bookingRepo;
+    private final CarRepository carRepo;
+
+    private final Map<String, CarSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<String, String> carByBooking = new ConcurrentHashMap<>();
+    private final Map<String, Car> fleet = new ConcurrentHashMap<>();
+    // Ids deleted while the startup load is running, so a stale snapshot can't resurrect them
+    private final Set<String> deletedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading = false;
+    private volatile boolean ready = false;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepo, CarRepository carRepo) {
+        this.bookingRepo = bookingRepo;
+        this.carRepo = carRepo;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Atomically checks the booking against the car's schedule and, if free, records it.
+    // Returns the id of a conflicting booking, or null when the slot was reserved.
+    public String tryReserve(Booking booking) {
+        Interval interval = intervalOf(booking);
+        if (interval == null) {
+            release(booking.getId());
+            return null;
+        }
+        if (!ready) {
+            String conflict = findConflictInMongo(interval);
+            if (conflict != null) {
+                return conflict;
+            }
+        }
+        String[] conflict = new String[1];
+        schedules.compute(interval.carId, (carId, schedule) -> {
+            CarSchedule current = schedule == null ? CarSchedule.EMPTY : schedule;
+            conflict[0] = current.firstConflict(interval.start, interval.end, interval.bookingId);
+            return conflict[0] == null ? current.without(interval.bookingId).with(interval) : schedule;
+        });
+        if (conflict[0] == null) {
+            moveBooking(interval.bookingId, interval.carId);
+        }
+        return conflict[0];
+    }
+
+    public void release(String bookingId) {
+        if (bookingId == null) {
+            return;
+        }
+        String carId = carByBooking.remove(bookingId);
+        if (carId != null) {
+            schedules.computeIfPresent(carId, (id, schedule) -> schedule.without(bookingId).orNull());
+        }
+    }
+
+    public boolean isAvailable(String carId, long from, long to) {
+        CarSchedule schedule = schedules.get(carId);
+        return schedule == null || schedule.firstConflict(from, to, null) == null;
+    }
+
+    public List<Car> availableCars(long from, long to) {
+        List<Car> available = new ArrayList<>();
+        for (Car car : fleet.values()) {
+            if (isAvailable(car.getId(), from, to)) {
+                available.add(car);
+            }
+        }
+        available.sort(Comparator.comparing(Car::getId));
+        return available;
+    }
+
+    public void apply(Booking booking) {
+        if (loading) {
+            deletedDuringLoad.remove(booking.getId());
+        }
+        Interval interval = intervalOf(booking);
+        if (interval == null) {
+            release(booking.getId());
+            return;
+        }
+        // Saves that got here through tryReserve are already recorded; anything else
+        // (legacy data, admin edits) is indexed as-is even if it overlaps.
+        schedules.compute(interval.carId, (carId, schedule) ->
+                (schedule == null ? CarSchedule.EMPTY : schedule).without(interval.bookingId).with(interval));
+        moveBooking(interval.bookingId, interval.carId);
+    }
+
+    void remove(String bookingId) {
+        if (loading) {
+            deletedDuringLoad.add(bookingId);
+        }
+        release(bookingId);
+    }
+
+    private void moveBooking(String bookingId, String carId) {
+        String previousCar = carByBooking.put(bookingId, carId);
+        if (previousCar != null && !previousCar.equals(carId)) {
+            schedules.computeIfPresent(previousCar, (id, schedule) -> schedule.without(bookingId).orNull());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        int indexed = 0;
+        try (Stream<Car> cars = carRepo.streamAllBy();
+             Stream<Booking> bookings = bookingRepo.streamByStatusIn(BLOCKING_STATUSES)) {
+            cars.forEach(car -> fleet.putIfAbsent(car.getId(), car));
+            for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+                if (carByBooking.containsKey(booking.getId()) || deletedDuringLoad.contains(booking.getId())) {
+                    continue;
+                }
+                try {
+                    apply(booking);
+                    indexed++;
+                } catch (IllegalArgumentException e) {
+                    log.debug("Skipping booking {} with unusable dates: {}", booking.getId(), e.getMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Availability index not loaded, falling back to Mongo overlap checks: {}", e.getMessage());
+            return;
+        } finally {
+            loading = false;
+            deletedDuringLoad.clear();
+        }
+        ready = true;
+        log.info("Availability index loaded: {} cars, {} active bookings", fleet.size(), indexed);
+    }
+
+    private String findConflictInMongo(Interval interval) {
+        try (Stream<Booking> bookings = bookingRepo.streamByCarIdAndStatusIn(interval.carId, BLOCKING_STATUSES)) {
+            return bookings
+                    .filter(b -> !b.getId().equals(interval.bookingId))
+                    .filter(b -> {
+                        Interval other = intervalOf(b);
+                        return other != null && other.start < interval.end && other.end > interval.start;
+                    })
+                    .map(Booking::getId)
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    // Null when the booking does not hold its car (non-blocking status or no car)
+    static Interval intervalOf(Booking booking) {
+        if (booking.getCarId() == null || !BLOCKING_STATUSES.contains(booking.getStatus())) {
+            return null;
+        }
+        long start = Timestamps.toEpochMillis(booking.getStartDate());
+        long end = Timestamps.toEpochMillis(booking.getEndDate());
+        if (end < start) {
+            throw new IllegalArgumentException("endDate is before startDate");
+        }
+        if (end == start) {
+            // Same-day rental still occupies the car for that day
+            end = start + ONE_DAY_MILLIS;
+        }
+        return new Interval(booking.getId(), booking.getCarId(), start, end);
+    }
+
+    static final class Interval {
+        final String bookingId;
+        final String carId;
+        final long start;
+        final long end;
+
+        Interval(String bookingId, String carId, long start, long end) {
+            this.bookingId = bookingId;
+            this.carId = carId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // Immutable per-car schedule, half-open intervals sorted by start. maxEnd[i] is the
+    // latest end among the first i + 1 intervals, which lets overlap checks stop early
+    // even when legacy data contains overlapping bookings. Writers copy (bookings per car
+    // are few); readers never lock.
+    static final class CarSchedule {
+        static final CarSchedule EMPTY = new CarSchedule(new String[0], new long[0], new long[0]);
+
+        final String[] ids;
+        final long[] starts;
+        final long[] ends;
+        final long[] maxEnd;
+
+        CarSchedule(String[] ids, long[] starts, long[] ends) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxEnd = new long[ends.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ends.length; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnd[i] = max;
+            }
+        }
+
+        String firstConflict(long from, long to, String excludeId) {
+            // Only intervals starting before `to` can overlap; walk back while any of them ends after `from`
+            for (int i = countStartingBefore(to) - 1; i >= 0 && maxEnd[i] > from; i--) {
+                if (ends[i] > from && !ids[i].equals(excludeId)) {
+                    return ids[i];
+                }
+            }
+            return null;
+        }
+
+        private int countStartingBefore(long to) {
+            int lo = 0;
+            int hi = starts.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < to) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        CarSchedule with(Interval interval) {
+            int at = countStartingBefore(interval.start);
+            int n = ids.length;
+            String[] newIds = new String[n + 1];
+            long[] newStarts = new long[n + 1];
+            long[] newEnds = new long[n + 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            newIds[at] = interval.bookingId;
+            newStarts[at] = interval.start;
+            newEnds[at] = interval.end;
+            System.arraycopy(ids, at, newIds, at + 1, n - at);
+            System.arraycopy(starts, at, newStarts, at + 1, n - at);
+            System.arraycopy(ends, at, newEnds, at + 1, n - at);
+            return new CarSchedule(newIds, newStarts, newEnds);
+        }
+
+        CarSchedule without(String bookingId) {
+            int at = Arrays.asList(ids).indexOf(bookingId);
+            if (at < 0) {
+                return this;
+            }
+            int n = ids.length;
+            String[] newIds = new String[n - 1];
+            long[] newStarts = new long[n - 1];
+            long[] newEnds = new long[n - 1];
+            System.arraycopy(ids, 0, newIds, 0, at);
+            System.arraycopy(starts, 0, newStarts, 0, at);
+            System.arraycopy(ends, 0, newEnds, 0, at);
+            System.arraycopy(ids, at + 1, newIds, at, n - at - 1);
+            System.arraycopy(starts, at + 1, newStarts, at, n - at - 1);
+            System.arraycopy(ends, at + 1, newEnds, at, n - at - 1);
+            return new CarSchedule(newIds, newStarts, newEnds);
+        }
+
+        CarSchedule orNull() {
+            return ids.length == 0 ? null : this;
+        }
+    }
+
+    @Component
+    static class BookingEvents extends AbstractMongoEventListener<Booking> {
+        private final BookingAvailabilityIndex index;
+
+        BookingEvents(BookingAvailabilityIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Booking> event) {
+            try {
+                index.apply(event.getSource());
+            } catch (IllegalArgumentException e) {
+                index.release(event.getSource().getId());
+            }
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Booking> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                index.remove(id);
+            }
+        }
+    }
+
+    @Component
+    static class CarEvents extends AbstractMongoEventListener<Car> {
+        private final BookingAvailabilityIndex index;
+
+        CarEvents(BookingAvailabilityIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Car> event) {
+            index.fleet.put(event.getSource().getId(), event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Car> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                index.fleet.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.carcircle.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Streams an NDJSON or CSV body into a collection: rows are parsed one line at a time,
+// checked by a RowHandler and inserted with unordered bulk writes of batch-size rows,
+// so memory stays at one batch however large the upload. A bad row is reported by its
+// line number and skipped; it never fails the rest of the import. Rows are inserts only,
+// so a row whose id already exists comes back as a duplicate-key error.
+@Component
+public class BulkImporter {
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public BulkImporter(MongoTemplate mongoTemplate, ObjectMapper objectMapper, ApplicationEventPublisher events,
+                        @Value("${carcircle.bulk.batch-size:1000}") int batchSize,
+                        @Value("${carcircle.bulk.max-reported-errors:1000}") int maxReportedErrors) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.events = events;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public interface RowHandler<T> {
+        // Validates and completes the row; returns why it is rejected, or null to insert it
+        String prepare(T row);
+
+        // The row passed prepare but its insert failed
+        default void rejected(T row) {}
+    }
+
+    public <T> Map<String, Object> importRows(InputStream body, boolean csv, Class<T> type, RowHandler<T> handler)
+            throws IOException {
+        Run<T> run = new Run<>(type, handler);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            readRows(reader, csv, type, run);
+        } catch (IOException | RuntimeException e) {
+            // The upload broke off; rows still waiting for their batch never get written
+            run.abandon();
+            throw e;
+        }
+        return run.summary();
+    }
+
+    private <T> void readRows(BufferedReader reader, boolean csv, Class<T> type, Run<T> run) throws IOException {
+        ObjectReader json = objectMapper.readerFor(type);
+        List<String> header = null;
+        int line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            int row = line;
+            if (csv) {
+                // A quoted field may run over several lines
+                while (unbalancedQuotes(text)) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        break;
+                    }
+                    line++;
+                    text = text + "\n" + next;
+                }
+            }
+            if (text.isBlank()) {
+                continue;
+            }
+            T value;
+            try {
+                if (!csv) {
+                    value = json.readValue(text);
+                } else if (header == null) {
+                    header = splitCsv(text);
+                    continue;
+                } else {
+                    value = objectMapper.convertValue(csvRow(header, splitCsv(text)), type);
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                run.error(row, "Unreadable row: " + rootMessage(e));
+                continue;
+            }
+            run.add(row, value);
+        }
+        run.flush();
+    }
+
+    private final class Run<T> {
+        final Class<T> type;
+        final RowHandler<T> handler;
+        final MongoPersistentEntity<?> entity;
+        final List<T> batch = new ArrayList<>(batchSize);
+        final List<Integer> batchRows = new ArrayList<>(batchSize);
+        final List<Map<String, Object>> errors = new ArrayList<>();
+        int rows;
+        long inserted;
+        long failed;
+
+        Run(Class<T> type, RowHandler<T> handler) {
+            this.type = type;
+            this.handler = handler;
+            this.entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type);
+        }
+
+        void add(int row, T value) {
+            rows++;
+            String problem;
+            try {
+                problem = handler.prepare(value);
+            } catch (IllegalArgumentException e) {
+                problem = e.getMessage();
+            }
+            if (problem != null) {
+                failed++;
+                report(row, problem);
+                return;
+            }
+            initVersion(value);
+            batch.add(value);
+            batchRows.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void abandon() {
+            batch.forEach(handler::rejected);
+            batch.clear();
+            batchRows.clear();
+        }
+
+        void error(int row, String message) {
+            rows++;
+            failed++;
+            report(row, message);
+        }
+
+        void report(int row, String message) {
+            if (errors.size() < maxReportedErrors) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("row", row);
+                error.put("error", message);
+                errors.add(error);
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                // On success the bulk publishes AfterSaveEvent for every row itself
+                inserted += mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type)
+                        .insert(batch)
+                        .execute()
+                        .getInsertedCount();
+            } catch (BulkOperationException e) {
+                Set<Integer> rejected = new HashSet<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    rejected.add(error.getIndex());
+                    report(batchRows.get(error.getIndex()), error.getMessage());
+                    handler.rejected(batch.get(error.getIndex()));
+                }
+                failed += rejected.size();
+                inserted += e.getResult().getInsertedCount();
+                // ...but not when some rows failed, so announce the ones that landed
+                MongoConverter converter = mongoTemplate.getConverter();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!rejected.contains(i)) {
+                        Document document = new Document();
+                        converter.write(batch.get(i), document);
+                        events.publishEvent(new AfterSaveEvent<>(batch.get(i), document, entity.getCollection()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                batch.forEach(handler::rejected);
+                throw e;
+            } finally {
+                batch.clear();
+                batchRows.clear();
+            }
+        }
+
+        // Bulk inserts skip the template's version initialisation; a null version would make
+        // the next repository save treat the document as new and insert it again
+        void initVersion(T value) {
+            MongoPersistentProperty version = entity.getVersionProperty();
+            if (version != null) {
+                PersistentPropertyAccessor<T> accessor = entity.getPropertyAccessor(value);
+                if (accessor.getProperty(version) == null) {
+                    accessor.setProperty(version, 0L);
+                }
+            }
+        }
+
+        Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("rows", rows);
+            summary.put("inserted", inserted);
+            summary.put("failed", failed);
+            summary.put("errors", errors);
+            summary.put("errorsTruncated", failed > errors.size());
+            return summary;
+        }
+    }
+
+    // Blank cells are left out so the entity keeps its defaults instead of failing to coerce ""
+    private static Map<String, String> csvRow(List<String> header, List<String> cells) {
+        if (cells.size() > header.size()) {
+            throw new IllegalArgumentException("expected " + header.size() + " columns but found " + cells.size());
+        }
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            if (!cells.get(i).isBlank()) {
+                row.put(header.get(i).trim(), cells.get(i).trim());
+            }
+        }
+        return row;
+    }
+
+    // RFC 4180 fields: comma separated, optionally quoted, "" for a literal quote
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c != '\r') {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static boolean unbalancedQuotes(String text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 != 0;
+    }
+
+    private static String rootMessage(Exception e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        String message = root instanceof JsonProcessingException json ? json.getOriginalMessage() : root.getMessage();
+        return message == null ? root.getClass().getSimpleName() : message;
+    }
+}
@@ -0,0 +1,442 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.model.CarSearch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-memory search over the fleet. Every car gets a small integer slot; make and model map
+// (lower-cased, in a TreeMap so prefixes are a sub-map) to bitsets of slots, and year and
+// price are kept as sorted primitive arrays of (value, slot) so a range is two binary
+// searches. A search is a few bitset ANDs, and the same arrays give sorted paging.
+// Saves and deletes update the structures in place through Mongo events.
+@Component
+public class CarSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(CarSearchIndex.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CarRepository carRepo;
+    private final double[] priceBuckets;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Everything below is guarded by lock
+    private final List<Car> slots = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final TreeMap<String, BitSet> byMake = new TreeMap<>();
+    private final TreeMap<String, BitSet> byModel = new TreeMap<>();
+    private final SortedColumn years = new SortedColumn();
+    private final SortedColumn prices = new SortedColumn();
+    // Ids deleted while the startup load is running, so a stale snapshot can't resurrect them
+    private final Set<String> deletedDuringLoad = new HashSet<>();
+    private volatile boolean loading = false;
+    private volatile boolean ready = false;
+
+    public CarSearchIndex(CarRepository carRepo,
+                          @Value("${carcircle.search.price-buckets:0,1000,2000,3000,5000,10000}") double[] priceBuckets) {
+        this.carRepo = carRepo;
+        this.priceBuckets = priceBuckets.clone();
+        Arrays.sort(this.priceBuckets);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> search(CarSearch query) {
+        long started = System.nanoTime();
+        int size = Math.max(1, Math.min(query.getSize(), MAX_PAGE_SIZE));
+        int page = Math.max(0, query.getPage());
+        lock.readLock().lock();
+        try {
+            // Each facet ignores its own filter, so the client can see what widening it would give
+            BitSet common = (BitSet) live.clone();
+            if (!isBlank(query.getModel())) {
+                common.and(prefix(byModel, query.getModel()));
+            }
+            if (!isBlank(query.getQ())) {
+                BitSet text = prefix(byMake, query.getQ());
+                text.or(prefix(byModel, query.getQ()));
+                common.and(text);
+            }
+            if (query.getMinYear() != null || query.getMaxYear() != null) {
+                common.and(years.range(
+                        query.getMinYear() == null ? Double.NEGATIVE_INFINITY : query.getMinYear(),
+                        query.getMaxYear() == null ? Double.POSITIVE_INFINITY : query.getMaxYear()));
+            }
+            BitSet forMakeFacet = (BitSet) common.clone();
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                forMakeFacet.and(prices.range(
+                        query.getMinPrice() == null ? Double.NEGATIVE_INFINITY : query.getMinPrice(),
+                        query.getMaxPrice() == null ? Double.POSITIVE_INFINITY : query.getMaxPrice()));
+            }
+            BitSet forPriceFacet = common;
+            BitSet matches = forMakeFacet;
+            if (!isBlank(query.getMake())) {
+                BitSet make = prefix(byMake, query.getMake());
+                forPriceFacet.and(make);
+                matches = (BitSet) forMakeFacet.clone();
+                matches.and(make);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", matches.cardinality());
+            result.put("page", page);
+            result.put("size", size);
+            result.put("items", page(matches, query.getSort(), query.isDescending(), (long) page * size, size));
+            Map<String, Object> facets = new LinkedHashMap<>();
+            facets.put("make", makeFacet(forMakeFacet));
+            facets.put("price", priceFacet(forPriceFacet));
+            result.put("facets", facets);
+            result.put("tookMicros", (System.nanoTime() - started) / 1000);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("cars", slotById.size());
+            stats.put("slots", slots.size());
+            stats.put("makes", byMake.size());
+            stats.put("models", byModel.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Car> page(BitSet matches, String sort, boolean descending, long offset, int size) {
+        List<Car> items = new ArrayList<>(size);
+        long[] skip = {offset};
+        SlotVisitor collect = slot -> {
+            if (!matches.get(slot)) {
+                return true;
+            }
+            if (skip[0] > 0) {
+                skip[0]--;
+                return true;
+            }
+            items.add(slots.get(slot));
+            return items.size() < size;
+        };
+        if ("price".equalsIgnoreCase(sort)) {
+            prices.visit(descending, collect);
+        } else if ("year".equalsIgnoreCase(sort)) {
+            years.visit(descending, collect);
+        } else {
+            NavigableMap<String, BitSet> makes = descending ? byMake.descendingMap() : byMake;
+            outer:
+            for (BitSet slotsOfMake : makes.values()) {
+                for (int slot = slotsOfMake.nextSetBit(0); slot >= 0; slot = slotsOfMake.nextSetBit(slot + 1)) {
+                    if (!collect.visit(slot)) {
+                        break outer;
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    private Map<String, Integer> makeFacet(BitSet matches) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            counts.merge(String.valueOf(slots.get(slot).getMake()), 1, Integer::sum);
+        }
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private List<Map<String, Object>> priceFacet(BitSet matches) {
+        int[] counts = new int[priceBuckets.length + 1];
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            int bucket = Arrays.binarySearch(priceBuckets, slots.get(slot).getPrice());
+            // Exact hits on an edge belong to the bucket starting there
+            counts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        }
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("from", i == 0 ? null : priceBuckets[i - 1]);
+            bucket.put("to", i == priceBuckets.length ? null : priceBuckets[i]);
+            bucket.put("count", counts[i]);
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private static BitSet prefix(TreeMap<String, BitSet> index, String prefix) {
+        String from = prefix.trim().toLowerCase(Locale.ROOT);
+        BitSet union = new BitSet();
+        for (BitSet slots : index.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            union.or(slots);
+        }
+        return union;
+    }
+
+    public void apply(Car car) {
+        if (car.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            deletedDuringLoad.remove(car.getId());
+            removeSlot(car.getId());
+            insertSlot(car);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String carId) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                deletedDuringLoad.add(carId);
+            }
+            removeSlot(carId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insertSlot(Car car) {
+        int slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+        if (slot == slots.size()) {
+            slots.add(car);
+        } else {
+            slots.set(slot, car);
+        }
+        slotById.put(car.getId(), slot);
+        live.set(slot);
+        byMake.computeIfAbsent(key(car.getMake()), k -> new BitSet()).set(slot);
+        byModel.computeIfAbsent(key(car.getModel()), k -> new BitSet()).set(slot);
+        years.add(car.getYear(), slot);
+        prices.add(car.getPrice(), slot);
+    }
+
+    private void removeSlot(String carId) {
+        Integer slot = slotById.remove(carId);
+        if (slot == null) {
+            return;
+        }
+        Car old = slots.set(slot, null);
+        live.clear(slot);
+        clearPosting(byMake, key(old.getMake()), slot);
+        clearPosting(byModel, key(old.getModel()), slot);
+        years.remove(old.getYear(), slot);
+        prices.remove(old.getPrice(), slot);
+        freeSlots.push(slot);
+    }
+
+    private static void clearPosting(TreeMap<String, BitSet> index, String key, int slot) {
+        BitSet posting = index.get(key);
+        if (posting != null) {
+            posting.clear(slot);
+            if (posting.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String key(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        try (Stream<Car> cars = carRepo.streamAllBy()) {
+            cars.forEach(car -> {
+                lock.writeLock().lock();
+                try {
+                    // A save or delete that raced the load is newer than the cursor's copy
+                    if (!slotById.containsKey(car.getId()) && !deletedDuringLoad.contains(car.getId())) {
+                        insertSlot(car);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            // Set before loading clears, so retryLoad never sees neither flag
+            ready = true;
+        } catch (DataAccessException e) {
+            log.warn("Car search index not loaded, will retry: {}", e.getMessage());
+            return;
+        } finally {
+            loading = false;
+            lock.writeLock().lock();
+            try {
+                deletedDuringLoad.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Car search index loaded: {} cars", stats().get("cars"));
+    }
+
+    // Until a load has succeeded (e.g. Mongo was down at startup) search answers 503; keep trying.
+    // Cars already inserted by a failed attempt are skipped, and events keep them current.
+    @Scheduled(fixedDelayString = "${carcircle.search.load-retry:PT30S}",
+               initialDelayString = "${carcircle.search.load-retry:PT30S}")
+    public void retryLoad() {
+        if (!ready && !loading) {
+            load();
+        }
+    }
+
+    interface SlotVisitor {
+        // false stops the walk
+        boolean visit(int slot);
+    }
+
+    // Values sorted ascending with the slot holding each, kept sorted on every add/remove.
+    // Updates shift the tail with arraycopy, which for a fleet-sized array is cheap next to
+    // re-sorting, and reads need no further work.
+    static final class SortedColumn {
+        private double[] values = new double[64];
+        private int[] slotOf = new int[64];
+        private int size;
+
+        void add(double value, int slot) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                slotOf = Arrays.copyOf(slotOf, size * 2);
+            }
+            int at = upperBound(value);
+            System.arraycopy(values, at, values, at + 1, size - at);
+            System.arraycopy(slotOf, at, slotOf, at + 1, size - at);
+            values[at] = value;
+            slotOf[at] = slot;
+            size++;
+        }
+
+        void remove(double value, int slot) {
+            for (int i = lowerBound(value); i < size && values[i] == value; i++) {
+                if (slotOf[i] == slot) {
+                    System.arraycopy(values, i + 1, values, i, size - i - 1);
+                    System.arraycopy(slotOf, i + 1, slotOf, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        BitSet range(double min, double max) {
+            BitSet slots = new BitSet();
+            for (int i = lowerBound(min), end = upperBound(max); i < end; i++) {
+                slots.set(slotOf[i]);
+            }
+            return slots;
+        }
+
+        void visit(boolean descending, SlotVisitor visitor) {
+            if (descending) {
+                for (int i = size - 1; i >= 0; i--) {
+                    if (!visitor.visit(slotOf[i])) {
+                        return;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (!visitor.visit(slotOf[i])) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // First index with values[i] >= value
+        private int lowerBound(double value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index with values[i] > value
+        private int upperBound(double value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    @Component
+    static class CarEvents extends AbstractMongoEventListener<Car> {
+        private final CarSearchIndex index;
+
+        CarEvents(CarSearchIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Car> event) {
+            index.apply(event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Car> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                index.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.auth.User;
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Dashboard numbers kept up to date from Mongo save/delete events so a dashboard request
+// only reads counters. Each entity keeps just the few fields that feed a counter, which
+// lets a later save of the same id subtract its old contribution before adding the new one.
+// A periodic reconcile rebuilds everything from Mongo to absorb writes that bypass events.
+@Component
+public class DashboardMetrics {
+    private static final Logger log = LoggerFactory.getLogger(DashboardMetrics.class);
+    private static final Set<String> ACTIVE_RENTAL = Set.of("Confirmed", "Active");
+    private static final Set<String> OPEN_JOB = Maintenance.OPEN_STATUSES;
+    private static final Set<String> URGENT_PRIORITY = Set.of("High", "Urgent");
+    private static final int RECENT_BOOKINGS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile Counters counters = new Counters();
+    // Changes seen while a reconcile is rebuilding; replayed onto the fresh counters
+    private final Queue<Consumer<Counters>> pendingDuringReconcile = new ConcurrentLinkedQueue<>();
+    private volatile boolean reconciling = false;
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    public DashboardMetrics(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public long totalUsers() { return counters.users.size(); }
+    public long totalCars() { return counters.cars.size(); }
+    public long activeRentals() { return counters.activeRentals.sum(); }
+    public long openJobs() { return counters.openJobs.sum(); }
+    public long pendingJobs() { return counters.pendingJobs.sum(); }
+    public long urgentOpenJobs() { return counters.urgentJobs.size(); }
+    public long unreadMessages() { return counters.unreadMessages.size(); }
+
+    // Unread messages addressed to this user directly, to their role, or to everyone
+    public long unreadFor(String userId, String role) {
+        long unread = sum(counters.unreadByAudience, Message.EVERYONE);
+        if (userId != null) {
+            unread += sum(counters.unreadByAudience, "user:" + userId);
+        }
+        if (role != null) {
+            unread += sum(counters.unreadByAudience, "role:" + role);
+        }
+        return unread;
+    }
+
+    public double revenue(YearMonth month) {
+        DoubleAdder adder = counters.revenueByMonth.get(month.toString());
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long completedJobsOn(LocalDate day) { return sum(counters.completedJobsByDay, day.toString()); }
+    public long openJobsFor(String mechanic) { return sum(counters.openJobsByMechanic, mechanic); }
+    public long activeRentalsFor(String userId) { return sum(counters.activeRentalsByUser, userId); }
+    public long completedTripsFor(String userId) { return sum(counters.completedTripsByUser, userId); }
+
+    public List<Booking> recentBookings() {
+        List<Booking> recent = new ArrayList<>(counters.recentBookings.values());
+        recent.sort(Comparator.comparing(Booking::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+        return recent.size() > RECENT_BOOKINGS ? recent.subList(0, RECENT_BOOKINGS) : recent;
+    }
+
+    public List<Maintenance> urgentJobs(int limit) {
+        return counters.urgentJobs.values().stream()
+                .sorted(Comparator.comparing(Maintenance::getDeadline, Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    // Bulk updates and deletes skip Mongo lifecycle events, so callers report them here
+    public void messagesRead(Collection<String> ids) {
+        record(c -> ids.forEach(c::removeMessage));
+    }
+
+    public void messagesDeleted(Collection<String> ids) {
+        record(c -> ids.forEach(c::removeMessage));
+    }
+
+    public void jobsAssigned(Map<String, String> mechanicByJob) {
+        record(c -> mechanicByJob.forEach(c::assignJob));
+    }
+
+    public void messagesReadFor(String receiverId, Instant before) {
+        String audience = "user:" + receiverId;
+        record(c -> c.unreadMessages.forEach((id, facts) -> {
+            if (facts.audience.equals(audience) && (before == null
+                    || (facts.timestamp != null && !facts.timestamp.isAfter(before)))) {
+                c.removeMessage(id);
+            }
+        }));
+    }
+
+    private static long sum(Map<String, LongAdder> counters, String key) {
+        LongAdder adder = key == null ? null : counters.get(key);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    void record(Consumer<Counters> change) {
+        if (reconciling) {
+            pendingDuringReconcile.add(change);
+        }
+        change.accept(counters);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialLoad() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${carcircle.metrics.reconcile-interval:PT15M}",
+               initialDelayString = "${carcircle.metrics.reconcile-interval:PT15M}")
+    public void reconcile() {
+        if (!reconcileLock.tryLock()) {
+            return;
+        }
+        reconciling = true;
+        try {
+            Counters fresh = new Counters();
+            load(Booking.class, fresh::putBooking, "userId", "carId", "status", "totalAmount", "startDate", "endDate", "customerEmail", "createdAt");
+            load(Maintenance.class, fresh::putJob, "vehicleId", "issue", "priority", "status", "assignedMechanic", "createdAt", "deadline", "completedAt");
+            load(Car.class, car -> fresh.cars.add(car.getId()));
+            load(User.class, user -> fresh.users.add(user.getId()));
+            Query unread = new Query(where("read").is(false));
+            unread.fields().include("read", "receiverId", "toRole", "timestamp");
+            try (Stream<Message> rows = mongoTemplate.stream(unread, Message.class)) {
+                rows.forEach(fresh::putMessage);
+            }
+            counters = fresh;
+            Consumer<Counters> change;
+            while ((change = pendingDuringReconcile.poll()) != null) {
+                change.accept(fresh);
+            }
+            log.debug("Dashboard metrics reconciled: {} bookings, {} jobs", fresh.bookings.size(), fresh.jobs.size());
+        } catch (DataAccessException e) {
+            log.warn("Dashboard metrics reconcile failed, keeping previous counters: {}", e.getMessage());
+        } finally {
+            reconciling = false;
+            pendingDuringReconcile.clear();
+            reconcileLock.unlock();
+        }
+    }
+
+    private <T> void load(Class<T> type, Consumer<T> sink, String... fields) {
+        Query query = new Query();
+        query.fields().include(fields);
+        try (Stream<T> rows = mongoTemplate.stream(query, type)) {
+            rows.forEach(sink);
+        }
+    }
+
+    static final class BookingFacts {
+        final String userId;
+        final String status;
+        final double amount;
+        final String month;
+
+        BookingFacts(Booking booking) {
+            this.userId = booking.getUserId();
+            this.status = booking.getStatus();
+            this.amount = booking.getTotalAmount();
+            this.month = booking.getCreatedAt() == null ? null : YearMonth.from(Timestamps.utcDate(booking.getCreatedAt())).toString();
+        }
+    }
+
+    static final class JobFacts {
+        final String status;
+        final String mechanic;
+        final String completedDay;
+
+        JobFacts(Maintenance job) {
+            this(job.getStatus(), job.getAssignedMechanic(),
+                    "Completed".equals(job.getStatus()) && job.getCompletedAt() != null
+                            ? Timestamps.utcDate(job.getCompletedAt()).toString() : null);
+        }
+
+        JobFacts(String status, String mechanic, String completedDay) {
+            this.status = status;
+            this.mechanic = mechanic;
+            this.completedDay = completedDay;
+        }
+    }
+
+    static final class UnreadFacts {
+        // See Message.audience()
+        final String audience;
+        final Instant timestamp;
+
+        UnreadFacts(Message message) {
+            this.audience = message.audience();
+            this.timestamp = message.getTimestamp();
+        }
+    }
+
+    static final class Counters {
+        final Map<String, BookingFacts> bookings = new ConcurrentHashMap<>();
+        final Map<String, JobFacts> jobs = new ConcurrentHashMap<>();
+        final Set<String> cars = ConcurrentHashMap.newKeySet();
+        final Set<String> users = ConcurrentHashMap.newKeySet();
+        final Map<String, UnreadFacts> unreadMessages = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> unreadByAudience = new ConcurrentHashMap<>();
+        final Map<String, Booking> recentBookings = new ConcurrentHashMap<>();
+        final Map<String, Maintenance> urgentJobs = new ConcurrentHashMap<>();
+
+        final LongAdder activeRentals = new LongAdder();
+        final LongAdder openJobs = new LongAdder();
+        final LongAdder pendingJobs = new LongAdder();
+        final Map<String, DoubleAdder> revenueByMonth = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> activeRentalsByUser = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> completedTripsByUser = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> completedJobsByDay = new ConcurrentHashMap<>();
+        final Map<String, LongAdder> openJobsByMechanic = new ConcurrentHashMap<>();
+
+        void putBooking(Booking booking) {
+            // compute() serializes saves of the same id, so old/new deltas can't interleave
+            bookings.compute(booking.getId(), (id, old) -> {
+                BookingFacts facts = new BookingFacts(booking);
+                if (old != null) {
+                    addBooking(old, -1);
+                }
+                addBooking(facts, 1);
+                return facts;
+            });
+            trackRecent(booking);
+        }
+
+        void removeBooking(String id) {
+            if (id == null) {
+                return;
+            }
+            bookings.computeIfPresent(id, (key, old) -> {
+                addBooking(old, -1);
+                return null;
+            });
+            recentBookings.remove(id);
+        }
+
+        private void addBooking(BookingFacts facts, int sign) {
+            if (ACTIVE_RENTAL.contains(facts.status)) {
+                activeRentals.add(sign);
+                add(activeRentalsByUser, facts.userId, sign);
+            }
+            if ("Completed".equals(facts.status)) {
+                add(completedTripsByUser, facts.userId, sign);
+            }
+            if (facts.month != null && !"Cancelled".equals(facts.status)) {
+                revenueByMonth.computeIfAbsent(facts.month, m -> new DoubleAdder()).add(sign * facts.amount);
+            }
+        }
+
+        private void trackRecent(Booking booking) {
+            recentBookings.put(booking.getId(), booking);
+            if (recentBookings.size() > RECENT_BOOKINGS * 2) {
+                recentBookings.values().stream()
+                        .sorted(Comparator.comparing(Booking::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+                        .limit(recentBookings.size() - RECENT_BOOKINGS)
+                        .forEach(b -> recentBookings.remove(b.getId()));
+            }
+        }
+
+        void putJob(Maintenance job) {
+            jobs.compute(job.getId(), (id, old) -> {
+                JobFacts facts = new JobFacts(job);
+                if (old != null) {
+                    addJob(old, -1);
+                }
+                addJob(facts, 1);
+                return facts;
+            });
+            if (OPEN_JOB.contains(job.getStatus()) && URGENT_PRIORITY.contains(job.getPriority())) {
+                urgentJobs.put(job.getId(), job);
+            } else {
+                urgentJobs.remove(job.getId());
+            }
+        }
+
+        void assignJob(String id, String mechanic) {
+            jobs.computeIfPresent(id, (key, old) -> {
+                addJob(old, -1);
+                JobFacts facts = new JobFacts(old.status, mechanic, old.completedDay);
+                addJob(facts, 1);
+                return facts;
+            });
+        }
+
+        void removeJob(String id) {
+            if (id == null) {
+                return;
+            }
+            jobs.computeIfPresent(id, (key, old) -> {
+                addJob(old, -1);
+                return null;
+            });
+            urgentJobs.remove(id);
+        }
+
+        private void addJob(JobFacts facts, int sign) {
+            if (OPEN_JOB.contains(facts.status)) {
+                openJobs.add(sign);
+                add(openJobsByMechanic, facts.mechanic, sign);
+            }
+            if ("Pending".equals(facts.status)) {
+                pendingJobs.add(sign);
+            }
+            add(completedJobsByDay, facts.completedDay, sign);
+        }
+
+        void putMessage(Message message) {
+            unreadMessages.compute(message.getId(), (id, old) -> {
+                if (old != null) {
+                    add(unreadByAudience, old.audience, -1);
+                }
+                if (message.isRead()) {
+                    return null;
+                }
+                UnreadFacts facts = new UnreadFacts(message);
+                add(unreadByAudience, facts.audience, 1);
+                return facts;
+            });
+        }
+
+        void removeMessage(String id) {
+            if (id == null) {
+                return;
+            }
+            unreadMessages.computeIfPresent(id, (key, old) -> {
+                add(unreadByAudience, old.audience, -1);
+                return null;
+            });
+        }
+
+        void removeUser(String id) {
+            if (id != null) {
+                users.remove(id);
+            }
+        }
+
+        void removeCar(String id) {
+            if (id != null) {
+                cars.remove(id);
+            }
+        }
+
+        private static void add(Map<String, LongAdder> counters, String key, int sign) {
+            if (key != null) {
+                counters.computeIfAbsent(key, k -> new LongAdder()).add(sign);
+            }
+        }
+    }
+
+    @Component
+    static class BookingEvents extends AbstractMongoEventListener<Booking> {
+        private final DashboardMetrics metrics;
+        BookingEvents(DashboardMetrics metrics) { this.metrics = metrics; }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Booking> event) {
+            Booking booking = event.getSource();
+            metrics.record(c -> c.putBooking(booking));
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Booking> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            metrics.record(c -> c.removeBooking(id));
+        }
+    }
+
+    @Component
+    static class MaintenanceEvents extends AbstractMongoEventListener<Maintenance> {
+        private final DashboardMetrics metrics;
+        MaintenanceEvents(DashboardMetrics metrics) { this.metrics = metrics; }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Maintenance> event) {
+            Maintenance job = event.getSource();
+            metrics.record(c -> c.putJob(job));
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Maintenance> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            metrics.record(c -> c.removeJob(id));
+        }
+    }
+
+    @Component
+    static class MessageEvents extends AbstractMongoEventListener<Message> {
+        private final DashboardMetrics metrics;
+        MessageEvents(DashboardMetrics metrics) { this.metrics = metrics; }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Message> event) {
+            Message message = event.getSource();
+            metrics.record(c -> c.putMessage(message));
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Message> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            metrics.record(c -> c.removeMessage(id));
+        }
+    }
+
+    @Component
+    static class UserEvents extends AbstractMongoEventListener<User> {
+        private final DashboardMetrics metrics;
+        UserEvents(DashboardMetrics metrics) { this.metrics = metrics; }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<User> event) {
+            String id = event.getSource().getId();
+            metrics.record(c -> c.users.add(id));
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<User> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            metrics.record(c -> c.removeUser(id));
+        }
+    }
+
+    @Component
+    static class CarEvents extends AbstractMongoEventListener<Car> {
+        private final DashboardMetrics metrics;
+        CarEvents(DashboardMetrics metrics) { this.metrics = metrics; }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Car> event) {
+            String id = event.getSource().getId();
+            metrics.record(c -> c.cars.add(id));
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Car> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            metrics.record(c -> c.removeCar(id));
+        }
+    }
+}
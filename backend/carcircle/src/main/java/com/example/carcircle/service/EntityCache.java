@@ -0,0 +1,217 @@
+package com.example.carcircle.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Bounded read-through cache for documents looked up by id. Entries are split across
+// lock-striped LRU segments and expire after a TTL. Writers invalidate by id (see
+// EntityCacheConfig); a load that races with an invalidation is not cached.
+public class EntityCache<V> {
+    private static final int SEGMENTS = 16;
+
+    private final String name;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final List<Segment<V>> segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public EntityCache(String name, boolean enabled, int maxSize, Duration ttl) {
+        this.name = name;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        List<Segment<V>> segments = new ArrayList<>(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new Segment<>(perSegment, evictions));
+        }
+        this.segments = List.copyOf(segments);
+    }
+
+    public Optional<V> get(String key, Function<String, Optional<V>> loader) {
+        if (!enabled || key == null) {
+            return loader.apply(key);
+        }
+        Segment<V> segment = segmentFor(key);
+        long now = System.nanoTime();
+        long generation;
+        segment.lock.lock();
+        try {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return Optional.of(entry.value);
+                }
+                segment.entries.remove(key);
+                expirations.increment();
+            }
+            generation = segment.invalidations;
+        } finally {
+            segment.lock.unlock();
+        }
+
+        misses.increment();
+        Optional<V> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            segment.lock.lock();
+            try {
+                // Skip the put if this segment saw an invalidation while we were loading
+                if (segment.invalidations == generation) {
+                    segment.entries.put(key, new Entry<>(loaded.get(), now));
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return loaded;
+    }
+
+    // For values produced outside a loader callback (e.g. assembled from a streamed response)
+    public Optional<V> getIfPresent(String key) {
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+        Segment<V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return Optional.of(entry.value);
+                }
+                segment.entries.remove(key);
+                expirations.increment();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, V value) {
+        if (!enabled || key == null || value == null) {
+            return;
+        }
+        Segment<V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.entries.put(key, new Entry<>(value, System.nanoTime()));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        Segment<V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.entries.remove(key);
+            segment.invalidations++;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.entries.clear();
+                segment.invalidations++;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("enabled", enabled);
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private Segment<V> segmentFor(String key) {
+        return segments.get(segmentIndex(key));
+    }
+
+    static int segmentIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (SEGMENTS - 1);
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedAt;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class Segment<V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry<V>> entries;
+        long invalidations;
+
+        Segment(int capacity, LongAdder evictions) {
+            // Access-ordered, so the eldest entry is the least recently used one
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.carcircle.service;
+
+import org.springframework.http.HttpStatus;
+
+// The LLM call could not be made or the upstream could not be reached
+public class LlmProxyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+    private final String details;
+
+    public LlmProxyException(HttpStatus status, String message, String details) {
+        super(message);
+        this.status = status;
+        this.details = details;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+}
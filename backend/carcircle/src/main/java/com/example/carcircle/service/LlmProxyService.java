@@ -0,0 +1,504 @@
+package com.example.carcircle.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import jakarta.annotation.PreDestroy;
+
+// Forwards completion requests to the LLM API through one shared, pooled HttpClient.
+// Nothing here blocks a servlet thread: the call is made with sendAsync, and the
+// upstream body is relayed chunk by chunk into ResponseBodyEmitters as it arrives,
+// so SSE/chunked responses reach the browser as soon as the upstream sends them.
+// In-flight calls are capped by an AsyncLimiter; excess callers wait in a bounded queue.
+//
+// Identical payloads (same canonical JSON) are answered from a TTL/size-bounded cache,
+// and concurrent identical payloads share one upstream call: later callers join the
+// in-flight Flight, get the chunks received so far replayed and then the rest live.
+// A payload with "cache": false skips both; the marker is stripped before forwarding.
+//
+// carcircle.llm.upstream times each upstream call from send to response headers
+// (phase=headers) and to the end of the body (phase=body); queueing is not included.
+@Service
+public class LlmProxyService {
+    public static final String CACHE_FLAG = "cache";
+    private static final String CACHE_HEADER = "X-Cache";
+
+    private final HttpClient client;
+    private final MeterRegistry registry;
+    private final ObjectMapper canonicalMapper;
+    private final AsyncLimiter limiter;
+    private final EntityCache<CachedResponse> responseCache;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final URI endpoint;
+    private final String apiKey;
+    private final String apiVersion;
+    private final Duration responseTimeout;
+    private final Duration streamTimeout;
+    private final int maxCachedBytes;
+
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public LlmProxyService(ObjectMapper mapper,
+                           EntityCache<CachedResponse> llmResponseCache,
+                           MeterRegistry registry,
+                           @Value("${carcircle.llm.endpoint}") String endpoint,
+                           @Value("${carcircle.llm.api-key:}") String apiKey,
+                           @Value("${carcircle.llm.api-version:}") String apiVersion,
+                           @Value("${carcircle.llm.connect-timeout:PT5S}") Duration connectTimeout,
+                           @Value("${carcircle.llm.response-timeout:PT60S}") Duration responseTimeout,
+                           @Value("${carcircle.llm.stream-timeout:PT5M}") Duration streamTimeout,
+                           @Value("${carcircle.llm.max-concurrent:32}") int maxConcurrent,
+                           @Value("${carcircle.llm.max-queued:64}") int maxQueued,
+                           @Value("${carcircle.llm.queue-timeout:PT10S}") Duration queueTimeout,
+                           @Value("${carcircle.llm.max-cached-bytes:262144}") int maxCachedBytes) {
+        // Sorted keys make logically equal payloads serialize (and hash) identically
+        this.canonicalMapper = mapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.responseCache = llmResponseCache;
+        this.registry = registry;
+        this.endpoint = URI.create(endpoint);
+        this.apiKey = apiKey;
+        this.apiVersion = apiVersion;
+        this.responseTimeout = responseTimeout;
+        this.streamTimeout = streamTimeout;
+        this.maxCachedBytes = maxCachedBytes;
+        this.limiter = new AsyncLimiter(maxConcurrent, maxQueued, queueTimeout);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    public CompletableFuture<ResponseEntity<ResponseBodyEmitter>> forward(Map<String, Object> payload) {
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new LlmProxyException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "ANTHROPIC_API_KEY not configured on server environment", null);
+        }
+        Object flag = payload.remove(CACHE_FLAG);
+        boolean cacheable = !(Boolean.FALSE.equals(flag) || "false".equals(flag));
+        byte[] body = canonicalJson(payload);
+
+        if (!cacheable) {
+            bypassed.increment();
+            Flight flight = new Flight(null);
+            CompletableFuture<ResponseEntity<ResponseBodyEmitter>> response = flight.respond("BYPASS", true);
+            start(flight, body);
+            return response;
+        }
+
+        String key = sha256(body);
+        while (true) {
+            Optional<CachedResponse> cached = responseCache.getIfPresent(key);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(replay(cached.get()));
+            }
+            Flight existing = inFlight.get(key);
+            if (existing != null) {
+                CompletableFuture<ResponseEntity<ResponseBodyEmitter>> joined = existing.respond("COALESCED", false);
+                if (joined != null) {
+                    coalesced.increment();
+                    return joined;
+                }
+                // Finished or stopped retaining its body; it removes itself, so look again
+                inFlight.remove(key, existing);
+                continue;
+            }
+            Flight flight = new Flight(key);
+            if (inFlight.putIfAbsent(key, flight) == null) {
+                CompletableFuture<ResponseEntity<ResponseBodyEmitter>> response = flight.respond("MISS", true);
+                start(flight, body);
+                return response;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", limiter.inFlight());
+        stats.put("queued", limiter.queued());
+        stats.put("upstreamCalls", upstreamCalls.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("cache", responseCache.stats());
+        return stats;
+    }
+
+    private void start(Flight flight, byte[] body) {
+        HttpRequest request = buildRequest(body);
+        CompletableFuture<Void> permit;
+        try {
+            permit = limiter.acquire();
+        } catch (RejectedExecutionException e) {
+            flight.fail(e);
+            return;
+        }
+        permit.whenComplete((ignored, waitError) -> {
+            if (waitError != null) {
+                flight.fail(waitError);
+                return;
+            }
+            upstreamCalls.increment();
+            flight.sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofPublisher()).whenComplete((response, error) -> {
+                recordUpstream("headers", error != null ? "ERROR" : Outcome.forStatus(response.statusCode()).name(),
+                        flight.sentAt);
+                if (error != null) {
+                    limiter.release();
+                    flight.fail(upstreamFailure(error));
+                } else {
+                    flight.open(response);
+                }
+            });
+        });
+    }
+
+    private void recordUpstream(String phase, String outcome, long sentAt) {
+        Timer.builder("carcircle.llm.upstream")
+                .description("LLM API call latency")
+                .tags("phase", phase, "outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+    }
+
+    private byte[] canonicalJson(Map<String, Object> payload) {
+        try {
+            return canonicalMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload is not serializable", e);
+        }
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest buildRequest(byte[] body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint)
+                // Bounds the wait for response headers; the body is bounded by streamTimeout
+                .timeout(responseTimeout)
+                .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .header("x-api-key", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (apiVersion != null && !apiVersion.isBlank()) {
+            builder.header("anthropic-version", apiVersion);
+        }
+        return builder.build();
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> replay(CachedResponse cached) {
+        MediaType contentType = MediaType.parseMediaType(cached.getContentType());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        try {
+            emitter.send(cached.getBody(), contentType);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(cached.getStatus()).contentType(contentType)
+                .header(CACHE_HEADER, "HIT").body(emitter);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static LlmProxyException upstreamFailure(Throwable error) {
+        Throwable cause = unwrap(error);
+        HttpStatus status = cause instanceof HttpTimeoutException && !(cause instanceof HttpConnectTimeoutException)
+                ? HttpStatus.GATEWAY_TIMEOUT
+                : HttpStatus.BAD_GATEWAY;
+        return new LlmProxyException(status, "Failed to contact Anthropic API", String.valueOf(cause.getMessage()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.shutdownNow();
+    }
+
+    // A complete, successful upstream response kept for replay
+    public static final class CachedResponse {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        CachedResponse(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        public byte[] getBody() { return body; }
+    }
+
+    // One upstream call and everyone listening to it. Pulls one upstream chunk at a time
+    // and only asks for the next once it has been written to every listener, so slow
+    // browsers slow the upstream read instead of buffering in memory. Chunks are retained
+    // (for late joiners and the cache) up to maxCachedBytes; past that the flight stops
+    // accepting joiners. If every listener leaves, the upstream read is cancelled.
+    private final class Flight implements Flow.Subscriber<List<ByteBuffer>> {
+        private final String key;
+        private final CompletableFuture<Void> headers = new CompletableFuture<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<ResponseBodyEmitter> emitters = new ArrayList<>();
+        private final AtomicBoolean released = new AtomicBoolean();
+        private List<byte[]> chunks;
+        private int retainedBytes;
+        private boolean joinable;
+        private boolean closed;
+        private boolean done;
+        private int status;
+        private MediaType contentType;
+        private volatile Flow.Subscription subscription;
+        private volatile long sentAt;
+
+        Flight(String key) {
+            this.key = key;
+            this.joinable = key != null;
+            this.chunks = key != null ? new ArrayList<>() : null;
+        }
+
+        // Registers a listener and completes with its response once upstream headers are in.
+        // Returns null if this flight can no longer be joined.
+        CompletableFuture<ResponseEntity<ResponseBodyEmitter>> respond(String cacheStatus, boolean leader) {
+            ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+            lock.lock();
+            try {
+                if (closed || (!leader && !joinable)) {
+                    return null;
+                }
+                for (byte[] chunk : chunks == null ? List.<byte[]>of() : chunks) {
+                    // The emitter is not attached to a response yet, so this only buffers
+                    emitter.send(chunk, contentType);
+                }
+                emitters.add(emitter);
+            } catch (IOException e) {
+                return null;
+            } finally {
+                lock.unlock();
+            }
+            emitter.onTimeout(() -> leave(emitter));
+            emitter.onError(e -> leave(emitter));
+            emitter.onCompletion(() -> leave(emitter));
+            return headers.thenApply(ignored -> ResponseEntity.status(status).contentType(contentType)
+                    .header(CACHE_HEADER, cacheStatus).body(emitter));
+        }
+
+        void open(HttpResponse<Flow.Publisher<List<ByteBuffer>>> response) {
+            lock.lock();
+            try {
+                status = response.statusCode();
+                contentType = response.headers().firstValue("Content-Type")
+                        .map(MediaType::parseMediaType)
+                        .orElse(MediaType.APPLICATION_JSON);
+            } finally {
+                lock.unlock();
+            }
+            headers.complete(null);
+            response.body().subscribe(this);
+        }
+
+        void fail(Throwable error) {
+            lock.lock();
+            try {
+                closed = true;
+                stopJoining();
+            } finally {
+                lock.unlock();
+            }
+            headers.completeExceptionally(unwrap(error));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            boolean abandoned;
+            lock.lock();
+            try {
+                abandoned = closed;
+            } finally {
+                lock.unlock();
+            }
+            if (abandoned) {
+                s.cancel();
+                releasePermit();
+            } else {
+                s.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            byte[] chunk = concat(buffers);
+            boolean abandoned;
+            lock.lock();
+            try {
+                if (chunks != null) {
+                    if (retainedBytes + chunk.length > maxCachedBytes) {
+                        chunks = null;
+                        stopJoining();
+                    } else {
+                        chunks.add(chunk);
+                        retainedBytes += chunk.length;
+                    }
+                }
+                if (chunk.length > 0) {
+                    for (ResponseBodyEmitter emitter : new ArrayList<>(emitters)) {
+                        try {
+                            emitter.send(chunk, contentType);
+                        } catch (IOException | IllegalStateException e) {
+                            // That browser went away or its emitter timed out
+                            emitters.remove(emitter);
+                        }
+                    }
+                }
+                abandoned = emitters.isEmpty();
+                if (abandoned) {
+                    closed = true;
+                    stopJoining();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (abandoned) {
+                subscription.cancel();
+                releasePermit();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            List<ResponseBodyEmitter> listeners;
+            lock.lock();
+            try {
+                done = true;
+                stopJoining();
+                listeners = new ArrayList<>(emitters);
+            } finally {
+                lock.unlock();
+            }
+            listeners.forEach(emitter -> emitter.completeWithError(error));
+            recordUpstream("body", "ERROR", sentAt);
+            releasePermit();
+        }
+
+        @Override
+        public void onComplete() {
+            List<ResponseBodyEmitter> listeners;
+            lock.lock();
+            try {
+                done = true;
+                if (chunks != null && status >= 200 && status < 300) {
+                    ByteArrayOutputStream body = new ByteArrayOutputStream(retainedBytes);
+                    chunks.forEach(body::writeBytes);
+                    // Cached before this flight stops accepting joiners, so a caller that
+                    // misses the flight is guaranteed to find the cache entry
+                    responseCache.put(key, new CachedResponse(status, contentType.toString(), body.toByteArray()));
+                }
+                stopJoining();
+                listeners = new ArrayList<>(emitters);
+            } finally {
+                lock.unlock();
+            }
+            listeners.forEach(ResponseBodyEmitter::complete);
+            recordUpstream("body", Outcome.forStatus(status).name(), sentAt);
+            releasePermit();
+        }
+
+        private void leave(ResponseBodyEmitter emitter) {
+            Flow.Subscription s = null;
+            lock.lock();
+            try {
+                if (!emitters.remove(emitter) || !emitters.isEmpty() || done) {
+                    return;
+                }
+                closed = true;
+                stopJoining();
+                s = subscription;
+            } finally {
+                lock.unlock();
+            }
+            // Before headers arrive there is nothing to cancel yet; onSubscribe sees closed
+            if (s != null) {
+                s.cancel();
+                releasePermit();
+            }
+        }
+
+        // Caller holds the lock
+        private void stopJoining() {
+            joinable = false;
+            if (key != null) {
+                inFlight.remove(key, this);
+            }
+        }
+
+        private void releasePermit() {
+            if (released.compareAndSet(false, true)) {
+                limiter.release();
+            }
+        }
+
+        private byte[] concat(List<ByteBuffer> buffers) {
+            int size = 0;
+            for (ByteBuffer buffer : buffers) {
+                size += buffer.remaining();
+            }
+            byte[] chunk = new byte[size];
+            int offset = 0;
+            for (ByteBuffer buffer : buffers) {
+                int length = buffer.remaining();
+                buffer.get(chunk, offset, length);
+                offset += length;
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.auth.User;
+import com.example.carcircle.auth.UserRepository;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.MaintenanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Assigns pending maintenance jobs to mechanics. Unassigned jobs wait in a heap ordered by
+// priority, then deadline, then age; mechanics sit in a set ordered by their open-job count.
+// A new job goes straight to the least-loaded mechanic with spare capacity (O(log n) on both
+// structures) and is saved with the assignment. When every mechanic is full the job queues,
+// and is handed out as capacity frees up; those assignments are written back in batches.
+// State follows Mongo save/delete events and is rebuilt from the open jobs at startup.
+@Component
+public class MaintenanceDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(MaintenanceDispatcher.class);
+    public static final String MECHANIC_ROLE = "mechanic";
+    private static final Map<String, Integer> PRIORITY_RANK = Map.of("Urgent", 3, "High", 2, "Medium", 1, "Low", 0);
+    private static final Comparator<QueuedJob> DISPATCH_ORDER = Comparator
+            .comparingInt((QueuedJob job) -> job.rank).reversed()
+            .thenComparing(job -> job.deadline, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(job -> job.createdAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(job -> job.id);
+    private static final Comparator<MechanicLoad> LEAST_LOADED = Comparator
+            .comparingInt((MechanicLoad mechanic) -> mechanic.openJobs)
+            .thenComparing(mechanic -> mechanic.id);
+
+    private final MaintenanceRepository maintenanceRepo;
+    private final UserRepository userRepo;
+    private final MongoTemplate mongoTemplate;
+    private final DashboardMetrics metrics;
+    private final int capacity;
+    private final int batchSize;
+
+    // Everything below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<QueuedJob> queue = new PriorityQueue<>(DISPATCH_ORDER);
+    // Live heap entries by job id; a re-prioritised or assigned job leaves a stale entry behind
+    private final Map<String, QueuedJob> queued = new HashMap<>();
+    private final Map<String, MechanicLoad> mechanics = new HashMap<>();
+    // Mechanics that can take new work, least loaded first
+    private final TreeSet<MechanicLoad> available = new TreeSet<>(LEAST_LOADED);
+    // Open jobs and who holds them, so a later save can move the load
+    private final Map<String, String> assignedTo = new HashMap<>();
+    // Assignments made from the queue that Mongo has not seen yet
+    private final Map<String, String> unflushed = new LinkedHashMap<>();
+    // Changes seen while rebuild() reads Mongo, replayed onto the fresh state; null otherwise
+    private List<Runnable> duringRebuild;
+
+    private final LongAdder directAssignments = new LongAdder();
+    private final LongAdder queuedAssignments = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+    private final LongAdder staleWrites = new LongAdder();
+
+    public MaintenanceDispatcher(MaintenanceRepository maintenanceRepo, UserRepository userRepo,
+                                 MongoTemplate mongoTemplate, DashboardMetrics metrics,
+                                 @Value("${carcircle.dispatch.max-jobs-per-mechanic:3}") int capacity,
+                                 @Value("${carcircle.dispatch.batch-size:100}") int batchSize) {
+        this.maintenanceRepo = maintenanceRepo;
+        this.userRepo = userRepo;
+        this.mongoTemplate = mongoTemplate;
+        this.metrics = metrics;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+    }
+
+    // Called before a new job is saved: if a mechanic has room, the job is assigned in place
+    // and the save persists it. Otherwise the job stays unassigned and queues once saved.
+    public void assignNew(Maintenance job) {
+        if (job.getId() == null || !"Pending".equals(job.getStatus()) || job.getAssignedMechanic() != null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (!queued.isEmpty() || available.isEmpty() || available.first().openJobs >= capacity) {
+                return;
+            }
+            MechanicLoad mechanic = available.first();
+            job.setAssignedMechanic(mechanic.id);
+            hold(job.getId(), mechanic.id);
+            directAssignments.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Undoes assignNew when the save did not go through
+    public void release(String jobId) {
+        change(() -> {
+            drop(jobId);
+            dispatch();
+        });
+    }
+
+    void apply(Maintenance job) {
+        change(() -> applyJob(job));
+    }
+
+    void remove(String jobId) {
+        release(jobId);
+    }
+
+    void mechanicSaved(User user) {
+        change(() -> {
+            MechanicLoad mechanic = mechanics.get(user.getId());
+            boolean eligible = MECHANIC_ROLE.equalsIgnoreCase(user.getRole());
+            if (mechanic == null && eligible) {
+                mechanic = new MechanicLoad(user.getId());
+                mechanics.put(mechanic.id, mechanic);
+            }
+            if (mechanic != null) {
+                available.remove(mechanic);
+                mechanic.eligible = eligible;
+                if (eligible) {
+                    available.add(mechanic);
+                }
+            }
+            dispatch();
+        });
+    }
+
+    void mechanicRemoved(String userId) {
+        change(() -> {
+            MechanicLoad mechanic = mechanics.get(userId);
+            if (mechanic != null) {
+                // Jobs they hold stay assigned; they just get no new ones
+                available.remove(mechanic);
+                mechanic.eligible = false;
+            }
+        });
+    }
+
+    // Applies an event to the current state, and keeps it for replay while a rebuild is reading
+    private void change(Runnable event) {
+        lock.lock();
+        try {
+            event.run();
+            if (duringRebuild != null) {
+                duringRebuild.add(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+        flushIfFull();
+    }
+
+    private void applyJob(Maintenance job) {
+        boolean open = Maintenance.OPEN_STATUSES.contains(job.getStatus());
+        String holder = open ? job.getAssignedMechanic() : null;
+        if (!Objects.equals(assignedTo.get(job.getId()), holder)) {
+            drop(job.getId());
+            if (holder != null) {
+                hold(job.getId(), holder);
+            }
+        }
+        if (open && holder == null && "Pending".equals(job.getStatus())) {
+            enqueue(job);
+        }
+        dispatch();
+    }
+
+    // Rebuilds mechanics, loads and the queue from Mongo. The reads run without the lock, so a
+    // slow or unreachable Mongo does not stall assignNew, save events or flush; events that
+    // arrive meanwhile apply to the old state and are replayed onto the fresh one.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            duringRebuild = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        List<User> mechanicUsers;
+        List<Maintenance> inProgress;
+        List<Maintenance> pending;
+        try {
+            mechanicUsers = userRepo.findByRole(MECHANIC_ROLE);
+            inProgress = maintenanceRepo.findByStatus("In Progress");
+            pending = maintenanceRepo.findByStatus("Pending");
+        } catch (DataAccessException e) {
+            log.warn("Maintenance dispatcher not rebuilt, new jobs will queue until it is: {}", e.getMessage());
+            lock.lock();
+            try {
+                duringRebuild = null;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            List<Runnable> replay = duringRebuild;
+            duringRebuild = null;
+            queue.clear();
+            queued.clear();
+            mechanics.clear();
+            available.clear();
+            assignedTo.clear();
+            unflushed.clear();
+            for (User user : mechanicUsers) {
+                MechanicLoad mechanic = new MechanicLoad(user.getId());
+                mechanic.eligible = true;
+                mechanics.put(mechanic.id, mechanic);
+                available.add(mechanic);
+            }
+            inProgress.forEach(this::applyJob);
+            pending.forEach(this::applyJob);
+            replay.forEach(Runnable::run);
+            log.info("Maintenance dispatcher rebuilt: {} mechanics, {} open assignments, {} jobs queued",
+                    mechanics.size(), assignedTo.size(), queued.size());
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    private void enqueue(Maintenance job) {
+        QueuedJob entry = new QueuedJob(job);
+        QueuedJob previous = queued.put(job.getId(), entry);
+        if (previous != null) {
+            previous.stale = true;
+        }
+        queue.add(entry);
+    }
+
+    // Hands queued jobs to mechanics until one side runs out
+    private void dispatch() {
+        while (!available.isEmpty() && available.first().openJobs < capacity) {
+            QueuedJob job = queue.poll();
+            if (job == null) {
+                return;
+            }
+            if (job.stale) {
+                continue;
+            }
+            queued.remove(job.id);
+            MechanicLoad mechanic = available.first();
+            hold(job.id, mechanic.id);
+            unflushed.put(job.id, mechanic.id);
+            queuedAssignments.increment();
+            long waited = job.createdAt == null ? 0 : Math.max(0, Instant.now().toEpochMilli() - job.createdAt.toEpochMilli());
+            totalWaitMillis.add(waited);
+            maxWaitMillis.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    private void hold(String jobId, String mechanicId) {
+        QueuedJob entry = queued.remove(jobId);
+        if (entry != null) {
+            entry.stale = true;
+        }
+        assignedTo.put(jobId, mechanicId);
+        adjust(mechanicId, 1);
+    }
+
+    private void drop(String jobId) {
+        QueuedJob entry = queued.remove(jobId);
+        if (entry != null) {
+            entry.stale = true;
+        }
+        unflushed.remove(jobId);
+        String mechanicId = assignedTo.remove(jobId);
+        if (mechanicId != null) {
+            adjust(mechanicId, -1);
+        }
+    }
+
+    // Jobs may name a mechanic we don't know (manual assignment); their load is still tracked
+    private void adjust(String mechanicId, int delta) {
+        MechanicLoad mechanic = mechanics.computeIfAbsent(mechanicId, MechanicLoad::new);
+        available.remove(mechanic);
+        mechanic.openJobs = Math.max(0, mechanic.openJobs + delta);
+        if (mechanic.eligible) {
+            available.add(mechanic);
+        }
+    }
+
+    private void flushIfFull() {
+        boolean full;
+        lock.lock();
+        try {
+            full = unflushed.size() >= batchSize;
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    // Writes queued assignments in one unordered bulk. Each update only lands if the job is
+    // still pending and unassigned; one that changed in between was already re-applied here
+    // through its save event, so a miss is simply dropped.
+    @Scheduled(fixedDelayString = "${carcircle.dispatch.flush-interval:PT1S}")
+    public void flush() {
+        Map<String, String> batch;
+        lock.lock();
+        try {
+            if (unflushed.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(unflushed);
+            unflushed.clear();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Maintenance.class);
+            batch.forEach((jobId, mechanicId) -> bulk.updateOne(
+                    new Query(where("id").is(jobId).and("status").is("Pending").and("assignedMechanic").is(null)),
+                    new Update().set("assignedMechanic", mechanicId).inc(PartialUpdater.VERSION_FIELD, 1)));
+            int modified = bulk.execute().getModifiedCount();
+            flushedBatches.increment();
+            flushedWrites.add(modified);
+            staleWrites.add(batch.size() - modified);
+            // Bulk writes skip lifecycle events; only report the assignments that landed
+            metrics.jobsAssigned(modified == batch.size() ? batch : landed(batch));
+        } catch (DataAccessException e) {
+            log.warn("Could not persist {} job assignments, will retry: {}", batch.size(), e.getMessage());
+            lock.lock();
+            try {
+                batch.forEach((jobId, mechanicId) -> {
+                    if (mechanicId.equals(assignedTo.get(jobId))) {
+                        unflushed.putIfAbsent(jobId, mechanicId);
+                    }
+                });
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // The batch entries whose job now holds that mechanic, read back after a partial bulk
+    private Map<String, String> landed(Map<String, String> batch) {
+        Query query = new Query(where("id").in(batch.keySet()));
+        query.fields().include("assignedMechanic");
+        Map<String, String> landed = new LinkedHashMap<>();
+        for (Maintenance job : mongoTemplate.find(query, Maintenance.class)) {
+            if (Objects.equals(batch.get(job.getId()), job.getAssignedMechanic())) {
+                landed.put(job.getId(), job.getAssignedMechanic());
+            }
+        }
+        return landed;
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queueDepth", queued.size());
+            QueuedJob head = queue.stream().filter(job -> !job.stale).min(DISPATCH_ORDER).orElse(null);
+            stats.put("nextJob", head == null ? null : head.id);
+            stats.put("oldestQueuedWaitMillis", queued.values().stream()
+                    .filter(job -> job.createdAt != null)
+                    .mapToLong(job -> Instant.now().toEpochMilli() - job.createdAt.toEpochMilli())
+                    .max().orElse(0));
+            long fromQueue = queuedAssignments.sum();
+            stats.put("directAssignments", directAssignments.sum());
+            stats.put("queuedAssignments", fromQueue);
+            stats.put("avgQueueWaitMillis", fromQueue == 0 ? 0 : totalWaitMillis.sum() / fromQueue);
+            stats.put("maxQueueWaitMillis", maxWaitMillis.get());
+            stats.put("capacityPerMechanic", capacity);
+            Map<String, Integer> loads = new TreeMap<>();
+            mechanics.values().stream()
+                    .filter(mechanic -> mechanic.eligible)
+                    .forEach(mechanic -> loads.put(mechanic.id, mechanic.openJobs));
+            stats.put("mechanicLoad", loads);
+            stats.put("unflushed", unflushed.size());
+            stats.put("flushedBatches", flushedBatches.sum());
+            stats.put("flushedWrites", flushedWrites.sum());
+            stats.put("staleWrites", staleWrites.sum());
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final class QueuedJob {
+        final String id;
+        final int rank;
+        final Instant deadline;
+        final Instant createdAt;
+        boolean stale;
+
+        QueuedJob(Maintenance job) {
+            this.id = job.getId();
+            this.rank = PRIORITY_RANK.getOrDefault(job.getPriority(), 0);
+            this.deadline = job.getDeadline();
+            this.createdAt = job.getCreatedAt();
+        }
+    }
+
+    static final class MechanicLoad {
+        final String id;
+        int openJobs;
+        boolean eligible;
+
+        MechanicLoad(String id) {
+            this.id = id;
+        }
+    }
+
+    @Component
+    static class MaintenanceEvents extends AbstractMongoEventListener<Maintenance> {
+        private final MaintenanceDispatcher dispatcher;
+
+        MaintenanceEvents(MaintenanceDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Maintenance> event) {
+            dispatcher.apply(event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Maintenance> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                dispatcher.remove(id);
+            }
+        }
+    }
+
+    @Component
+    static class UserEvents extends AbstractMongoEventListener<User> {
+        private final MaintenanceDispatcher dispatcher;
+
+        UserEvents(MaintenanceDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<User> event) {
+            dispatcher.mechanicSaved(event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<User> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                dispatcher.mechanicRemoved(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes newly sent messages to connected inboxes over Server-Sent Events. Each
+// subscriber gets a bounded buffer drained by a small shared pool; a subscriber whose
+// buffer overflows is disconnected (the browser's EventSource reconnects and refetches)
+// rather than allowed to queue unbounded messages.
+@Component
+public class MessagePushService {
+    private static final Logger log = LoggerFactory.getLogger(MessagePushService.class);
+    private static final String BROADCAST = "all";
+
+    private final Map<String, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byRole = new ConcurrentHashMap<>();
+    private final Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    public MessagePushService(@Value("${carcircle.messages.push.buffer-size:64}") int bufferSize,
+                              @Value("${carcircle.messages.push.sender-threads:4}") int senderThreads,
+                              @Value("${carcircle.messages.push.timeout:PT30M}") Duration timeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread t = new Thread(r, "message-push-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public SseEmitter subscribe(String userId, String role) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, normalize(role), emitter);
+        all.add(subscriber);
+        if (userId != null) {
+            byUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        if (subscriber.role != null) {
+            byRole.computeIfAbsent(subscriber.role, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return all.size();
+    }
+
+    public void publish(Message message) {
+        for (Subscriber subscriber : recipients(message)) {
+            subscriber.offer(SseEmitter.event().id(message.getId()).name("message").data(message));
+        }
+    }
+
+    private Set<Subscriber> recipients(Message message) {
+        if (BROADCAST.equals(message.getReceiverId()) || BROADCAST.equals(message.getTo())) {
+            return all;
+        }
+        Set<Subscriber> targets = new HashSet<>();
+        addAll(targets, byUser.get(message.getReceiverId()));
+        addAll(targets, byRole.get(normalize(message.getToRole())));
+        return targets;
+    }
+
+    private static void addAll(Set<Subscriber> targets, Set<Subscriber> source) {
+        if (source != null) {
+            targets.addAll(source);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${carcircle.messages.push.heartbeat:PT25S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : all) {
+            subscriber.offer(SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        all.remove(subscriber);
+        remove(byUser, subscriber.userId, subscriber);
+        remove(byRole, subscriber.role, subscriber);
+        subscriber.buffer.clear();
+    }
+
+    private static void remove(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    private static String normalize(String role) {
+        return role == null || role.isBlank() ? null : role.toLowerCase();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Subscriber> open = new ArrayList<>(all);
+        open.forEach(s -> s.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+        final String userId;
+        final String role;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        // True while a drain task is queued or running, so at most one thread writes to the emitter
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String userId, String role, SseEmitter emitter) {
+            this.userId = userId;
+            this.role = role;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!buffer.offer(event)) {
+                log.debug("Disconnecting slow message subscriber {}", userId);
+                unsubscribe(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An offer may have raced with the end of the loop above
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
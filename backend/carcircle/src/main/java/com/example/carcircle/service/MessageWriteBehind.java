@@ -0,0 +1,459 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.model.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Optional write-behind for POST /api/messages (carcircle.messages.write-behind.enabled).
+// A sent message gets its id up front, is appended to a local journal and queued; one
+// writer thread inserts the queue into Mongo with unordered bulk inserts of up to
+// batch-size messages, waiting at most max-delay after the first to fill a batch. Journal
+// segments are deleted once everything in them is in Mongo, and whatever is left at
+// startup is replayed; ids were fixed at accept time, so a replayed message that did land
+// before the crash comes back as a duplicate key and counts as written. With journal-fsync
+// off the journal survives a process crash but not the machine losing power.
+// Accepted messages are readable from Mongo only after their batch lands.
+@Component
+public class MessageWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(MessageWriteBehind.class);
+    private static final int DUPLICATE_KEY = 11000;
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+    private final Duration shutdownTimeout;
+    private final Path journalDir;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    // Accepted but not yet in Mongo, including the batch being written; bounded by capacity
+    private final AtomicInteger pending = new AtomicInteger();
+    // Guards the journal. A lock rather than a monitor, since appends fsync while holding it
+    // and a virtual thread blocked on a monitor pins its carrier
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private Journal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final Timer flushOk;
+    private final Timer flushFailed;
+    private final DistributionSummary batchSizes;
+    private final Counter rejectedFull;
+
+    public MessageWriteBehind(MongoTemplate mongoTemplate, ApplicationEventPublisher events, ObjectMapper objectMapper,
+                              MeterRegistry registry,
+                              @Value("${carcircle.messages.write-behind.enabled:false}") boolean enabled,
+                              @Value("${carcircle.messages.write-behind.batch-size:500}") int batchSize,
+                              @Value("${carcircle.messages.write-behind.max-delay:PT0.2S}") Duration maxDelay,
+                              @Value("${carcircle.messages.write-behind.capacity:20000}") int capacity,
+                              @Value("${carcircle.messages.write-behind.journal-dir:data/message-journal}") Path journalDir,
+                              @Value("${carcircle.messages.write-behind.journal-segment-size:16777216}") long segmentBytes,
+                              @Value("${carcircle.messages.write-behind.journal-fsync:true}") boolean fsync,
+                              @Value("${carcircle.messages.write-behind.shutdown-timeout:PT10S}") Duration shutdownTimeout) {
+        if (batchSize < 1 || capacity < batchSize) {
+            throw new IllegalArgumentException("carcircle.messages.write-behind needs 1 <= batch-size <= capacity");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.capacity = capacity;
+        this.shutdownTimeout = shutdownTimeout;
+        this.journalDir = journalDir;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+
+        Gauge.builder("carcircle.messages.write-behind.pending", pending, AtomicInteger::get)
+                .description("Messages accepted but not yet written to Mongo")
+                .register(registry);
+        flushOk = flushTimer(registry, "ok");
+        flushFailed = flushTimer(registry, "failed");
+        batchSizes = DistributionSummary.builder("carcircle.messages.write-behind.batch")
+                .description("Messages per bulk insert")
+                .register(registry);
+        rejectedFull = Counter.builder("carcircle.messages.write-behind.rejected")
+                .description("Messages refused because the queue was at capacity")
+                .register(registry);
+    }
+
+    // Replays the journal and starts the writer once the bean is fully constructed
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new Journal(journalDir, segmentBytes, fsync);
+        int replayed = journal.recover(objectMapper.readerFor(Message.class), (seq, message) -> {
+            pending.incrementAndGet();
+            queue.add(new Entry(seq, message));
+        });
+        if (replayed > 0) {
+            log.info("Replaying {} journaled messages from {}", replayed, journalDir);
+        }
+        running = true;
+        writer = new Thread(this::run, "message-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static Timer flushTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("carcircle.messages.write-behind.flush")
+                .description("Bulk insert of one batch of queued messages")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns once the message is journaled; it reaches Mongo with a later batch
+    public Message enqueue(Message message) {
+        if (!running) {
+            throw new RejectedExecutionException("Message writer is not running");
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            rejectedFull.increment();
+            throw new RejectedExecutionException("Message queue is full");
+        }
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        try {
+            byte[] record = objectMapper.writeValueAsBytes(message);
+            // Journal and queue order must match for segment release to be correct
+            journalLock.lock();
+            try {
+                queue.add(new Entry(journal.append(record), message));
+            } finally {
+                journalLock.unlock();
+            }
+        } catch (IOException e) {
+            pending.decrementAndGet();
+            log.warn("Could not journal message: {}", e.getMessage());
+            throw new RejectedExecutionException("Message journal is unavailable", e);
+        }
+        return message;
+    }
+
+    public int pending() {
+        return pending.get();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!writeWithRetry(batch)) {
+                    return;
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // False when shutdown interrupted the retries; the batch is still in the journal
+    private boolean writeWithRetry(List<Entry> batch) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                write(batch);
+                flushOk.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                break;
+            } catch (DataAccessException e) {
+                flushFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!running) {
+                    log.warn("Mongo unavailable at shutdown, {} messages left in the journal", pending.get());
+                    return false;
+                }
+                log.warn("Message batch of {} not written, retrying in {} ms: {}", batch.size(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF.toMillis());
+            }
+        }
+        pending.addAndGet(-batch.size());
+        journalLock.lock();
+        try {
+            journal.release(batch.get(batch.size() - 1).seq);
+        } catch (IOException e) {
+            // Only costs a replay of messages that are already written
+            log.warn("Could not release journal segments: {}", e.getMessage());
+        } finally {
+            journalLock.unlock();
+        }
+        return true;
+    }
+
+    void write(List<Entry> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        batch.forEach(entry -> messages.add(entry.message));
+        try {
+            // On success the bulk publishes AfterSaveEvent for every message itself
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class).insert(messages).execute();
+        } catch (BulkOperationException e) {
+            Set<Integer> notInserted = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                notInserted.add(error.getIndex());
+                if (error.getCode() != DUPLICATE_KEY) {
+                    // Retrying would fail the same way
+                    log.warn("Dropping queued message {}: {}", messages.get(error.getIndex()).getId(), error.getMessage());
+                }
+            }
+            // ...but not when some failed, so announce the ones that landed
+            String collection = mongoTemplate.getCollectionName(Message.class);
+            for (int i = 0; i < messages.size(); i++) {
+                if (!notInserted.contains(i)) {
+                    Document document = new Document();
+                    mongoTemplate.getConverter().write(messages.get(i), document);
+                    events.publishEvent(new AfterSaveEvent<>(messages.get(i), document, collection));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        // The writer drains what is queued before it stops; after the timeout the rest is replayed next start
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(1000);
+        }
+        journalLock.lock();
+        try {
+            journal.close();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    static final class Entry {
+        final long seq;
+        final Message message;
+
+        Entry(long seq, Message message) {
+            this.seq = seq;
+            this.message = message;
+        }
+    }
+
+    interface RecoveredEntries {
+        void accept(long seq, Message message);
+    }
+
+    // NDJSON segments named by a rising index. Sequence numbers exist only in memory: every
+    // record gets the next one when it is appended or recovered, so a segment can be deleted
+    // once the writer has flushed past its last record. Not thread-safe; callers lock it.
+    static final class Journal {
+        private static final String PREFIX = "messages-";
+        private static final String SUFFIX = ".ndjson";
+
+        private final Path dir;
+        private final long segmentBytes;
+        private final boolean fsync;
+        private final Deque<Segment> closed = new ArrayDeque<>();
+        private Segment current;
+        private long nextSeq = 1;
+
+        Journal(Path dir, long segmentBytes, boolean fsync) throws IOException {
+            this.dir = dir;
+            this.segmentBytes = segmentBytes;
+            this.fsync = fsync;
+            Files.createDirectories(dir);
+        }
+
+        int recover(ObjectReader reader, RecoveredEntries sink) throws IOException {
+            TreeMap<Long, Path> segments = new TreeMap<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    segments.put(indexOf(file), file);
+                }
+            }
+            int recovered = 0;
+            for (Path file : segments.values()) {
+                long last = 0;
+                try (BufferedReader lines = Files.newBufferedReader(file)) {
+                    String line;
+                    while ((line = lines.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            Message message = reader.readValue(line);
+                            message.setConversationKey(Message.conversationKeyOf(message.getSenderId(), message.getReceiverId()));
+                            last = nextSeq++;
+                            sink.accept(last, message);
+                            recovered++;
+                        } catch (JsonProcessingException e) {
+                            // A record cut short by the crash; it was never acknowledged
+                            log.warn("Skipping unreadable journal record in {}: {}", file, e.getOriginalMessage());
+                        }
+                    }
+                }
+                if (last == 0) {
+                    Files.delete(file);
+                } else {
+                    closed.add(new Segment(file, null, last));
+                }
+            }
+            current = open(segments.isEmpty() ? 0 : segments.lastKey() + 1);
+            return recovered;
+        }
+
+        long append(byte[] record) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(record.length + 1).put(record).put((byte) '\n').flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    current.channel.write(buffer);
+                }
+                if (fsync) {
+                    current.channel.force(false);
+                }
+            } catch (IOException e) {
+                // Don't append after a torn record
+                roll();
+                throw e;
+            }
+            long seq = nextSeq++;
+            current.lastSeq = seq;
+            current.size += record.length + 1;
+            if (current.size >= segmentBytes) {
+                roll();
+            }
+            return seq;
+        }
+
+        // Everything up to and including seq is in Mongo
+        void release(long seq) throws IOException {
+            while (!closed.isEmpty() && closed.peekFirst().lastSeq <= seq) {
+                Files.deleteIfExists(closed.pollFirst().path);
+            }
+            if (closed.isEmpty() && current.size > 0 && current.lastSeq <= seq) {
+                current.channel.truncate(0);
+                current.size = 0;
+            }
+        }
+
+        void close() throws IOException {
+            current.channel.close();
+            if (current.size == 0) {
+                Files.deleteIfExists(current.path);
+            }
+        }
+
+        private void roll() throws IOException {
+            current.channel.close();
+            if (current.size > 0) {
+                closed.add(current);
+            } else {
+                Files.deleteIfExists(current.path);
+            }
+            current = open(indexOf(current.path) + 1);
+        }
+
+        private Segment open(long index) throws IOException {
+            Path path = dir.resolve(String.format("%s%019d%s", PREFIX, index, SUFFIX));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            return new Segment(path, channel, 0);
+        }
+
+        private static long indexOf(Path path) {
+            String name = path.getFileName().toString();
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        }
+
+        private static final class Segment {
+            final Path path;
+            final FileChannel channel;
+            long lastSeq;
+            long size;
+
+            Segment(Path path, FileChannel channel, long lastSeq) {
+                this.path = path;
+                this.channel = channel;
+                this.lastSeq = lastSeq;
+            }
+        }
+    }
+}
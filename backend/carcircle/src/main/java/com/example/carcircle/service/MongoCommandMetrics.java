@@ -0,0 +1,80 @@
+package com.example.carcircle.service;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// What each query costs beyond its latency, which the driver's own mongodb.driver.commands
+// timer already covers: documents returned per find/aggregate/getMore batch by collection,
+// and how many commands the current request thread has issued (read by RequestMetricsFilter).
+// Meters are looked up by the strings the driver already holds, so recording allocates nothing
+// once a collection/command pair has been seen.
+@Component
+public class MongoCommandMetrics implements CommandListener {
+    // -1 while the thread is not inside a counted request
+    private static final ThreadLocal<long[]> REQUEST_COMMANDS = ThreadLocal.withInitial(() -> new long[] {-1});
+
+    private final MeterRegistry registry;
+    // namespace ("db.collection") -> command name -> summary
+    private final Map<String, Map<String, DistributionSummary>> documents = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void startCounting() {
+        REQUEST_COMMANDS.get()[0] = 0;
+    }
+
+    // Commands issued from this thread since startCounting
+    public long stopCounting() {
+        long[] count = REQUEST_COMMANDS.get();
+        long commands = Math.max(0, count[0]);
+        count[0] = -1;
+        return commands;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        long[] count = REQUEST_COMMANDS.get();
+        if (count[0] >= 0) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        BsonValue cursor = event.getResponse().get("cursor");
+        if (cursor == null || !cursor.isDocument()) {
+            return;
+        }
+        BsonDocument result = cursor.asDocument();
+        BsonValue batch = result.containsKey("firstBatch") ? result.get("firstBatch") : result.get("nextBatch");
+        BsonValue namespace = result.get("ns");
+        if (batch == null || !batch.isArray() || namespace == null || !namespace.isString()) {
+            return;
+        }
+        summary(namespace.asString().getValue(), event.getCommandName()).record(batch.asArray().size());
+    }
+
+    private DistributionSummary summary(String namespace, String command) {
+        Map<String, DistributionSummary> byCommand = documents.computeIfAbsent(namespace, ns -> new ConcurrentHashMap<>());
+        DistributionSummary summary = byCommand.get(command);
+        if (summary == null) {
+            summary = byCommand.computeIfAbsent(command, name -> DistributionSummary.builder("carcircle.mongo.documents")
+                    .description("Documents returned per query or cursor batch")
+                    .tag("collection", namespace.substring(namespace.indexOf('.') + 1))
+                    .tag("command", name)
+                    .register(registry));
+        }
+        return summary;
+    }
+}
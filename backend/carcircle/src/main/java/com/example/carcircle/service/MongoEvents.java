@@ -0,0 +1,13 @@
+package com.example.carcircle.service;
+
+import org.bson.Document;
+
+public final class MongoEvents {
+    private MongoEvents() {}
+
+    // Delete events only carry the query document, e.g. {_id: ObjectId(...)}
+    public static String idOf(Document deleteQuery) {
+        Object id = deleteQuery.get("_id");
+        return id == null || id instanceof Document ? null : id.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.carcircle.service;
+
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Applies a PATCH body as a single findAndModify with $set on just the supplied fields,
+// instead of reading the document and saving it whole. If the caller supplies the version
+// it last read, the write only lands if nobody else has written since.
+@Component
+public class PartialUpdater {
+    public static final String VERSION_FIELD = "version";
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher events;
+
+    public PartialUpdater(MongoTemplate mongoTemplate, ApplicationEventPublisher events) {
+        this.mongoTemplate = mongoTemplate;
+        this.events = events;
+    }
+
+    // Empty when no document has the id; throws OptimisticLockingFailureException when the
+    // expected version is stale and IllegalArgumentException for fields outside `allowed`.
+    public <T> Optional<T> patch(Class<T> type, String id, Map<String, Object> fields, Set<String> allowed,
+                                 Long expectedVersion, Map<String, Object> alsoSet) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(type);
+
+        checkAllowed(fields, allowed);
+        Update update = new Update();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            if (VERSION_FIELD.equals(field.getKey())) {
+                continue;
+            }
+            MongoPersistentProperty property = entity.getRequiredPersistentProperty(field.getKey());
+            update.set(field.getKey(), convert(converter, field.getValue(), property));
+        }
+        alsoSet.forEach(update::set);
+        update.inc(VERSION_FIELD, 1);
+
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and(VERSION_FIELD).is(expectedVersion);
+        }
+        T updated = mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), type);
+        if (updated == null) {
+            if (expectedVersion != null && mongoTemplate.exists(new Query(where("id").is(id)), type)) {
+                throw new OptimisticLockingFailureException(
+                        type.getSimpleName() + " " + id + " was modified since version " + expectedVersion);
+            }
+            return Optional.empty();
+        }
+        // findAndModify skips the save lifecycle; announce it so in-memory indexes stay in sync
+        Document document = new Document();
+        converter.write(updated, document);
+        events.publishEvent(new AfterSaveEvent<>(updated, document, entity.getCollection()));
+        return Optional.of(updated);
+    }
+
+    // For callers that act on the fields before patching them
+    public static void checkAllowed(Map<String, Object> fields, Set<String> allowed) {
+        for (String field : fields.keySet()) {
+            if (!VERSION_FIELD.equals(field) && !allowed.contains(field)) {
+                throw new IllegalArgumentException("Field '" + field + "' cannot be updated");
+            }
+        }
+    }
+
+    public static Long expectedVersion(Map<String, Object> fields) {
+        Object version = fields.get(VERSION_FIELD);
+        if (version == null) {
+            return null;
+        }
+        if (version instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.parseLong(version.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("version must be a number");
+        }
+    }
+
+    private static Object convert(MongoConverter converter, Object value, MongoPersistentProperty property) {
+        if (value == null) {
+            if (property.getType().isPrimitive()) {
+                throw new IllegalArgumentException("'" + property.getName() + "' cannot be null");
+            }
+            return null;
+        }
+        if (property.getType().isInstance(value)) {
+            return value;
+        }
+        if (property.getType() == Instant.class && value instanceof String text) {
+            // Same lenient formats as request bodies; garbage is a 400, not a silent null
+            return Timestamps.parse(text);
+        }
+        Class<?> target = property.getType().isPrimitive() ? boxed(property.getType()) : property.getType();
+        try {
+            return converter.getConversionService().convert(value, target);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid value for '" + property.getName() + "'");
+        }
+    }
+
+    private static Class<?> boxed(Class<?> primitive) {
+        if (primitive == int.class) return Integer.class;
+        if (primitive == long.class) return Long.class;
+        if (primitive == double.class) return Double.class;
+        if (primitive == boolean.class) return Boolean.class;
+        return primitive;
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.carcircle.service;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+
+// Prices a rental from the car's daily rate, fleet demand and length of stay. Demand comes
+// from a per-day histogram of how many cars are booked, kept current from booking events,
+// so a quote costs one lookup per rented day instead of a scan of overlapping bookings.
+// Days above the surge threshold utilization cost up to surge-max more, scaling linearly
+// to a fully booked fleet; the discount tier for the rental length applies to the total.
+@Component
+public class PricingEngine {
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+    // Histogram days are grouped in blocks so an array lookup does most of the work
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    private final BookingRepository bookingRepo;
+    private final CarRepository carRepo;
+    private final double surgeThreshold;
+    private final double surgeMax;
+    private final TreeMap<Integer, Double> discounts;
+    private final int maxDays;
+
+    private final Map<Long, AtomicIntegerArray> occupancy = new ConcurrentHashMap<>();
+    // Days each blocking booking currently contributes, [fromDay, toDay)
+    private final Map<String, long[]> spans = new ConcurrentHashMap<>();
+    private final Set<String> fleet = ConcurrentHashMap.newKeySet();
+    // Ids deleted while the startup load is running, so a stale snapshot can't resurrect them
+    private final Set<String> deletedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading = false;
+
+    public PricingEngine(BookingRepository bookingRepo, CarRepository carRepo,
+                         @Value("${carcircle.pricing.surge-threshold:0.6}") double surgeThreshold,
+                         @Value("${carcircle.pricing.surge-max:0.5}") double surgeMax,
+                         @Value("${carcircle.pricing.discounts:7:0.10,30:0.25}") String discounts,
+                         @Value("${carcircle.pricing.max-days:365}") int maxDays) {
+        if (surgeThreshold < 0 || surgeThreshold >= 1) {
+            throw new IllegalArgumentException("carcircle.pricing.surge-threshold must be in [0, 1)");
+        }
+        this.bookingRepo = bookingRepo;
+        this.carRepo = carRepo;
+        this.surgeThreshold = surgeThreshold;
+        this.surgeMax = surgeMax;
+        this.discounts = parseDiscounts(discounts);
+        this.maxDays = maxDays;
+    }
+
+    // excludeBookingId leaves that booking's own days out of the demand, for re-quoting an edit
+    public Quote quote(Car car, Instant start, Instant end, String excludeBookingId) {
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("startDate and endDate are required");
+        }
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("endDate is before startDate");
+        }
+        long fromDay = Timestamps.utcDate(start).toEpochDay();
+        long toDay = rentalEnd(fromDay, Timestamps.utcDate(end).toEpochDay());
+        int days = (int) Math.min(toDay - fromDay, Integer.MAX_VALUE);
+        if (days > maxDays) {
+            throw new IllegalArgumentException("Rentals are limited to " + maxDays + " days");
+        }
+        long[] own = excludeBookingId == null ? null : spans.get(excludeBookingId);
+        double fleetSize = Math.max(1, fleet.size());
+        double rate = car.getPrice();
+
+        double surcharge = 0;
+        double utilizationSum = 0;
+        double peak = 0;
+        for (long day = fromDay; day < toDay; day++) {
+            int booked = occupancyOn(day);
+            if (own != null && day >= own[0] && day < own[1]) {
+                booked--;
+            }
+            double utilization = Math.min(1, Math.max(0, booked) / fleetSize);
+            utilizationSum += utilization;
+            peak = Math.max(peak, utilization);
+            if (utilization > surgeThreshold) {
+                surcharge += rate * surgeMax * (utilization - surgeThreshold) / (1 - surgeThreshold);
+            }
+        }
+        double base = rate * days;
+        Map.Entry<Integer, Double> tier = discounts.floorEntry(days);
+        double discountRate = tier == null ? 0 : tier.getValue();
+        double discount = (base + surcharge) * discountRate;
+        return new Quote(car.getId(), days, rate, round(base), round(surcharge), round(utilizationSum / days),
+                round(peak), discountRate, round(discount), round(base + surcharge - discount));
+    }
+
+    private int occupancyOn(long day) {
+        AtomicIntegerArray block = occupancy.get(day >> BLOCK_SHIFT);
+        return block == null ? 0 : block.get((int) (day & BLOCK_MASK));
+    }
+
+    public void apply(Booking booking) {
+        if (loading) {
+            deletedDuringLoad.remove(booking.getId());
+        }
+        long[] span = spanOf(booking);
+        spans.compute(booking.getId(), (id, old) -> {
+            if (old != null) {
+                addDays(old, -1);
+            }
+            if (span != null) {
+                addDays(span, 1);
+            }
+            return span;
+        });
+    }
+
+    public void remove(String bookingId) {
+        if (loading) {
+            deletedDuringLoad.add(bookingId);
+        }
+        spans.computeIfPresent(bookingId, (id, old) -> {
+            addDays(old, -1);
+            return null;
+        });
+    }
+
+    public void carAdded(String carId) {
+        fleet.add(carId);
+    }
+
+    public void carRemoved(String carId) {
+        fleet.remove(carId);
+    }
+
+    private void addDays(long[] span, int delta) {
+        for (long day = span[0]; day < span[1]; day++) {
+            occupancy.computeIfAbsent(day >> BLOCK_SHIFT, block -> new AtomicIntegerArray(BLOCK_MASK + 1))
+                    .addAndGet((int) (day & BLOCK_MASK), delta);
+        }
+    }
+
+    // Null when the booking does not hold a car
+    private static long[] spanOf(Booking booking) {
+        if (booking.getCarId() == null || booking.getStartDate() == null || booking.getEndDate() == null
+                || !BookingAvailabilityIndex.BLOCKING_STATUSES.contains(booking.getStatus())
+                || booking.getEndDate().isBefore(booking.getStartDate())) {
+            return null;
+        }
+        long fromDay = Timestamps.utcDate(booking.getStartDate()).toEpochDay();
+        return new long[] {fromDay, rentalEnd(fromDay, Timestamps.utcDate(booking.getEndDate()).toEpochDay())};
+    }
+
+    // Rental days are [start date, end date); a same-day rental still counts as one day
+    private static long rentalEnd(long fromDay, long toDay) {
+        return Math.max(toDay, fromDay + 1);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        int loaded = 0;
+        try (Stream<Car> cars = carRepo.streamAllBy();
+             Stream<Booking> bookings = bookingRepo.streamByStatusIn(BookingAvailabilityIndex.BLOCKING_STATUSES)) {
+            cars.forEach(car -> fleet.add(car.getId()));
+            for (Booking booking : (Iterable<Booking>) bookings::iterator) {
+                if (!spans.containsKey(booking.getId()) && !deletedDuringLoad.contains(booking.getId())) {
+                    apply(booking);
+                    loaded++;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Occupancy histogram not loaded, quotes will not include demand: {}", e.getMessage());
+            return;
+        } finally {
+            loading = false;
+            deletedDuringLoad.clear();
+        }
+        log.info("Occupancy histogram loaded: {} cars, {} active bookings", fleet.size(), loaded);
+    }
+
+    private static TreeMap<Integer, Double> parseDiscounts(String spec) {
+        TreeMap<Integer, Double> tiers = new TreeMap<>();
+        if (spec == null || spec.isBlank()) {
+            return tiers;
+        }
+        for (String tier : spec.split(",")) {
+            String[] parts = tier.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Discount tiers look like 7:0.10,30:0.25, got '" + tier + "'");
+            }
+            tiers.put(Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+        }
+        return tiers;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    public static final class Quote {
+        private final String carId;
+        private final int days;
+        private final double dailyRate;
+        private final double base;
+        private final double demandSurcharge;
+        private final double averageUtilization;
+        private final double peakUtilization;
+        private final double discountRate;
+        private final double discount;
+        private final double total;
+
+        Quote(String carId, int days, double dailyRate, double base, double demandSurcharge, double averageUtilization,
+              double peakUtilization, double discountRate, double discount, double total) {
+            this.carId = carId;
+            this.days = days;
+            this.dailyRate = dailyRate;
+            this.base = base;
+            this.demandSurcharge = demandSurcharge;
+            this.averageUtilization = averageUtilization;
+            this.peakUtilization = peakUtilization;
+            this.discountRate = discountRate;
+            this.discount = discount;
+            this.total = total;
+        }
+
+        public String getCarId() { return carId; }
+        public int getDays() { return days; }
+        public double getDailyRate() { return dailyRate; }
+        public double getBase() { return base; }
+        public double getDemandSurcharge() { return demandSurcharge; }
+        public double getAverageUtilization() { return averageUtilization; }
+        public double getPeakUtilization() { return peakUtilization; }
+        public double getDiscountRate() { return discountRate; }
+        public double getDiscount() { return discount; }
+        public double getTotal() { return total; }
+    }
+
+    @Component
+    static class BookingEvents extends AbstractMongoEventListener<Booking> {
+        private final PricingEngine engine;
+
+        BookingEvents(PricingEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Booking> event) {
+            engine.apply(event.getSource());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Booking> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                engine.remove(id);
+            }
+        }
+    }
+
+    @Component
+    static class CarEvents extends AbstractMongoEventListener<Car> {
+        private final PricingEngine engine;
+
+        CarEvents(PricingEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public void onAfterSave(AfterSaveEvent<Car> event) {
+            engine.carAdded(event.getSource().getId());
+        }
+
+        @Override
+        public void onAfterDelete(AfterDeleteEvent<Car> event) {
+            String id = MongoEvents.idOf(event.getSource());
+            if (id != null) {
+                engine.carRemoved(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.carcircle.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+// Turns on the MongoDB database profiler for operations that are slow or scan a whole
+// collection, and summarizes system.profile into a "which queries need an index" report.
+// Level 1 with a filter keeps the overhead to the operations we actually want to see.
+// The profile level is a server-wide setting that outlives the app, so it is only switched
+// on when carcircle.profiler.enabled is set, and stays on until someone runs {profile: 0}.
+@Service
+public class QueryProfiler {
+    private static final Logger log = LoggerFactory.getLogger(QueryProfiler.class);
+    private static final String PROFILE_COLLECTION = "system.profile";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int slowMs;
+
+    public QueryProfiler(MongoTemplate mongoTemplate,
+                         @Value("${carcircle.profiler.enabled:false}") boolean enabled,
+                         @Value("${carcircle.profiler.slow-ms:100}") int slowMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.slowMs = slowMs;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void enableProfiler() {
+        if (!enabled) {
+            return;
+        }
+        Document filter = new Document("$or", List.of(
+                new Document("millis", new Document("$gte", slowMs)),
+                new Document("planSummary", "COLLSCAN")));
+        try {
+            mongoTemplate.executeCommand(new Document("profile", 1).append("slowms", slowMs).append("filter", filter));
+            log.info("MongoDB profiler on for operations over {} ms or without an index", slowMs);
+        } catch (DataAccessException e) {
+            try {
+                // Servers before 4.4.2 have no profile filter; fall back to the latency threshold alone
+                mongoTemplate.executeCommand(new Document("profile", 1).append("slowms", slowMs));
+                log.info("MongoDB profiler on for operations over {} ms", slowMs);
+            } catch (DataAccessException fallback) {
+                log.warn("Could not enable the MongoDB profiler: {}", fallback.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> settings() {
+        Document current = mongoTemplate.executeCommand(new Document("profile", -1));
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("level", current.get("was"));
+        settings.put("slowms", current.get("slowms"));
+        settings.put("filter", current.get("filter"));
+        return settings;
+    }
+
+    // Profiled operations since `window` ago that scanned a collection or took at least
+    // thresholdMs, grouped by collection and query shape, worst offenders first
+    public List<Map<String, Object>> report(int thresholdMs, Duration window, int limit) {
+        Document match = new Document("ts", new Document("$gte", Date.from(Instant.now().minus(window))))
+                .append("ns", new Document("$not", new Document("$regex", "\\.system\\.")))
+                .append("$or", List.of(
+                        new Document("planSummary", "COLLSCAN"),
+                        new Document("millis", new Document("$gte", thresholdMs))));
+        Document group = new Document("_id", new Document("ns", "$ns")
+                .append("op", "$op")
+                .append("shape", new Document("$ifNull", List.of("$planCacheShapeHash", "$queryHash")))
+                .append("plan", "$planSummary"))
+                .append("count", new Document("$sum", 1))
+                .append("avgMillis", new Document("$avg", "$millis"))
+                .append("maxMillis", new Document("$max", "$millis"))
+                .append("docsExamined", new Document("$sum", "$docsExamined"))
+                .append("returned", new Document("$sum", "$nreturned"))
+                .append("lastSeen", new Document("$max", "$ts"))
+                .append("sample", new Document("$last", "$command"));
+        List<Document> pipeline = List.of(
+                new Document("$match", match),
+                new Document("$group", group),
+                new Document("$sort", new Document("count", -1).append("maxMillis", -1)),
+                new Document("$limit", limit));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Document doc : mongoTemplate.getCollection(PROFILE_COLLECTION).aggregate(pipeline)) {
+            Document id = doc.get("_id", Document.class);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("namespace", id.get("ns"));
+            row.put("operation", id.get("op"));
+            row.put("plan", id.get("plan"));
+            row.put("collectionScan", "COLLSCAN".equals(id.get("plan")));
+            row.put("count", doc.get("count"));
+            row.put("avgMillis", doc.get("avgMillis"));
+            row.put("maxMillis", doc.get("maxMillis"));
+            row.put("docsExamined", doc.get("docsExamined"));
+            row.put("returned", doc.get("returned"));
+            row.put("lastSeen", doc.get("lastSeen"));
+            row.put("sample", doc.get("sample"));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
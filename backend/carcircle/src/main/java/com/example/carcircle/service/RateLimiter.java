@@ -0,0 +1,64 @@
+package com.example.carcircle.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token buckets of `limit` tokens refilled evenly over `period`, one per key. Each bucket is
+// a single long, the time at which it will be full again (the GCRA form of a token bucket),
+// so taking a token is one CAS with no lock and no allocation. Buckets live in a
+// ConcurrentHashMap, whose reads never lock and whose inserts lock a single bin.
+// A bucket that has refilled completely is indistinguishable from a new one, which is what
+// evictIdle() removes; a request racing with its removal may get one token for free.
+public class RateLimiter {
+    private final long emissionNanos;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(int limit, Duration period) {
+        this(limit, period, System::nanoTime);
+    }
+
+    RateLimiter(int limit, Duration period, LongSupplier clock) {
+        if (limit <= 0 || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("A rate limit needs a positive limit and period");
+        }
+        this.emissionNanos = Math.max(1, period.toNanos() / limit);
+        this.burstNanos = emissionNanos * limit;
+        this.clock = clock;
+    }
+
+    // 0 when a token was taken, otherwise the nanoseconds until one is available
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = (fullAt - now > 0 ? fullAt : now) + emissionNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.carcircle.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+
+// Dates arrive as "2024-01-15" from the date pickers, as full ISO timestamps from the
+// browser, or as the zone-less LocalDateTime strings older documents were stored with.
+// Request values are read as UTC; the stored legacy strings were written in the server's
+// local time, so their readers pass that zone (see legacyZone). Stored values are Instants
+// at millisecond precision, which is what a BSON date holds.
+public final class Timestamps {
+    private Timestamps() {}
+
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    public static Instant parse(String value) {
+        return parse(value, ZoneOffset.UTC);
+    }
+
+    // As parse(String), but a zone-less date-time is taken to be local time in localZone
+    public static Instant parse(String value, ZoneId localZone) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        String text = value.trim();
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            if (text.endsWith("Z")) {
+                return Instant.parse(text);
+            }
+            if (text.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(text).toInstant();
+            }
+            return LocalDateTime.parse(text).atZone(localZone).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Unparseable date: " + value);
+        }
+    }
+
+    // Zone the legacy LocalDateTime strings were written in: the JVM default unless configured
+    public static ZoneId legacyZone(String configured) {
+        return configured == null || configured.isBlank() ? ZoneId.systemDefault() : ZoneId.of(configured.trim());
+    }
+
+    public static long toEpochMillis(String value) {
+        return parse(value).toEpochMilli();
+    }
+
+    public static long toEpochMillis(Instant value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        return value.toEpochMilli();
+    }
+
+    public static LocalDate utcDate(Instant value) {
+        return value == null ? null : LocalDate.ofInstant(value, ZoneOffset.UTC);
+    }
+}
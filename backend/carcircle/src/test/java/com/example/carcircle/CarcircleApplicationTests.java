@@ -3,7 +3,9 @@ package com.example.carcircle;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// No Mongo in the test run: fail server selection fast so the startup loaders finish
+// before shutdown instead of holding the task executor for 30s
+@SpringBootTest(properties = "spring.data.mongodb.uri=mongodb://localhost:27017/cars_circle?serverSelectionTimeoutMS=1000")
 class CarcircleApplicationTests {
 
 	@Test
@@ -0,0 +1,56 @@
+package com.example.carcircle.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PasswordHasherTests {
+
+	private PasswordHasher hasher;
+
+	@AfterEach
+	void shutdown() {
+		if (hasher != null) {
+			hasher.shutdown();
+		}
+	}
+
+	@Test
+	void hashesMatchOnlyTheirPassword() {
+		hasher = new PasswordHasher(4, 1, 4);
+
+		String hash = hasher.hash("s3cret").join();
+
+		assertThat(hasher.isHashed(hash)).isTrue();
+		assertThat(hasher.matches("s3cret", hash).join()).isTrue();
+		assertThat(hasher.matches("wrong", hash).join()).isFalse();
+		assertThat(hasher.matches(null, hash).join()).isFalse();
+		assertThat(hasher.matchesNone("s3cret").join()).isFalse();
+
+		// Plaintext left over from before hashing still compares
+		assertThat(hasher.isHashed("s3cret")).isFalse();
+		assertThat(hasher.matches("s3cret", "s3cret").join()).isTrue();
+	}
+
+	@Test
+	void submissionsBeyondTheQueueAreRejected() {
+		// One worker busy for a few hundred milliseconds per hash, one queue slot
+		hasher = new PasswordHasher(12, 1, 1);
+
+		CompletableFuture<String> running = hasher.hash("a");
+		CompletableFuture<String> queued = hasher.hash("b");
+
+		assertThatThrownBy(() -> hasher.hash("c")).isInstanceOf(RejectedExecutionException.class);
+		assertThatThrownBy(() -> hasher.matchesNone("c")).isInstanceOf(RejectedExecutionException.class);
+		assertThat(hasher.queuedTasks()).isEqualTo(1);
+
+		// Capacity comes back once the backlog drains
+		CompletableFuture.allOf(running, queued).join();
+		assertThat(hasher.hash("d").join()).startsWith("$2a$12$");
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.carcircle.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.carcircle.service.EntityCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SessionStoreTests {
+
+	private final TokenService tokenService = new TokenService("test-secret", Duration.ofHours(1), new ObjectMapper());
+	private final User alice = new User("user-1", "alice", "alice@example.com", "$2a$10$hash", "customer");
+
+	private SessionRepository sessionRepo;
+	private UserRepository userRepo;
+	private MongoTemplate mongoTemplate;
+	private SessionStore store;
+	private final Map<String, Session> closed = new HashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		sessionRepo = mock(SessionRepository.class);
+		userRepo = mock(UserRepository.class);
+		mongoTemplate = mock(MongoTemplate.class);
+		// Logout upserts a closed session; the repository then finds it
+		when(sessionRepo.findById(anyString())).thenAnswer(call -> Optional.ofNullable(closed.get(call.getArgument(0))));
+		when(sessionRepo.save(any())).thenAnswer(call -> call.getArgument(0));
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(Session.class))).thenAnswer(call -> {
+			Session session = new Session();
+			session.setClosed(true);
+			closed.put(call.<Query>getArgument(0).getQueryObject().getString("_id"), session);
+			return null;
+		});
+		store = new SessionStore(tokenService, sessionRepo, userRepo, mongoTemplate,
+				new EntityCache<>("sessions", true, 100, Duration.ofMinutes(1)),
+				new EntityCache<>("users", true, 100, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	void profileOfAnOpenSessionIsServedFromMemory() {
+		String token = tokenService.issue(alice);
+		store.open(token, alice);
+
+		User profile = store.find("Bearer " + token).orElseThrow().profile();
+		assertThat(profile.getId()).isEqualTo("user-1");
+		assertThat(profile.getEmail()).isEqualTo("alice@example.com");
+		assertThat(profile.getPassword()).isNull();
+		verify(sessionRepo, never()).findById(anyString());
+
+		assertThat(store.find("Bearer " + token + "x")).isEmpty();
+		assertThat(store.find(null)).isEmpty();
+	}
+
+	@Test
+	void validTokenWithoutASessionOpensOneForAnExistingUser() {
+		when(userRepo.findById("user-1")).thenReturn(Optional.of(alice));
+		String token = tokenService.issue(alice);
+
+		Session session = store.find("Bearer " + token).orElseThrow();
+		assertThat(session.getId()).isEqualTo(SessionStore.idOf(token)).doesNotContain(token);
+		assertThat(session.getExpiresAt()).isNotNull();
+		store.find("Bearer " + token);
+		verify(sessionRepo, times(1)).save(any());
+
+		when(userRepo.findById("user-2")).thenReturn(Optional.empty());
+		assertThat(store.find("Bearer " + tokenService.issue(new User("user-2", "bob", "bob@example.com", null, "owner"))))
+				.isEmpty();
+	}
+
+	@Test
+	void loggedOutTokenStaysRevoked() {
+		when(userRepo.findById("user-1")).thenReturn(Optional.of(alice));
+		String token = tokenService.issue(alice);
+		store.open(token, alice);
+
+		assertThat(store.close("Bearer " + token)).isTrue();
+		assertThat(store.find("Bearer " + token)).isEmpty();
+
+		// Another node, whose cache never saw the session, reads the closed one from Mongo
+		SessionStore otherNode = new SessionStore(tokenService, sessionRepo, userRepo, mongoTemplate,
+				new EntityCache<>("sessions", true, 100, Duration.ofMinutes(1)),
+				new EntityCache<>("users", true, 100, Duration.ofMinutes(1)));
+		assertThat(otherNode.find("Bearer " + token)).isEmpty();
+		assertThat(otherNode.updateProfile("Bearer " + token, alice)).isEmpty();
+	}
+
+	@Test
+	void profileEditsAreSavedToTheUser() {
+		User stored = new User("user-1", "alice", "alice@example.com", "$2a$10$hash", "customer");
+		stored.setVersion(3L);
+		when(userRepo.findById("user-1")).thenReturn(Optional.of(stored));
+		when(userRepo.save(any())).thenAnswer(call -> call.getArgument(0));
+		String token = tokenService.issue(alice);
+		store.open(token, alice);
+
+		User edit = new User("someone-else", "alice b", "alice.b@example.com", "secret", "admin");
+		User profile = store.updateProfile("Bearer " + token, edit).orElseThrow().profile();
+		assertThat(profile.getId()).isEqualTo("user-1");
+		assertThat(profile.getRole()).isEqualTo("customer");
+		assertThat(profile.getUsername()).isEqualTo("alice b");
+		assertThat(profile.getPassword()).isNull();
+
+		ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+		verify(userRepo).save(saved.capture());
+		assertThat(saved.getValue().getVersion()).isEqualTo(3L);
+		assertThat(saved.getValue().getEmail()).isEqualTo("alice.b@example.com");
+		assertThat(saved.getValue().getPassword()).isEqualTo("$2a$10$hash");
+		assertThat(saved.getValue().getRole()).isEqualTo("customer");
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.carcircle.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TokenServiceTests {
+
+	private final TokenService tokens = new TokenService("test-secret", Duration.ofHours(1), new ObjectMapper());
+
+	@Test
+	void issuedTokensVerifyWithTheirClaims() {
+		String token = tokens.issue(user());
+
+		assertThat(tokens.verify(token)).hasValueSatisfying(claims -> {
+			assertThat(claims).containsEntry("sub", "u-1").containsEntry("email", "ann@example.com")
+					.containsEntry("role", "admin");
+		});
+		assertThat(tokens.verifyHeader("Bearer " + token)).isPresent();
+		assertThat(tokens.verifyHeader(token)).isEmpty();
+	}
+
+	@Test
+	void expiredTokensAreRejected() {
+		TokenService expired = new TokenService("test-secret", Duration.ofMinutes(-1), new ObjectMapper());
+
+		assertThat(expired.verify(expired.issue(user()))).isEmpty();
+	}
+
+	@Test
+	void tamperedTokensAreRejected() {
+		String token = tokens.issue(user());
+		int dot = token.indexOf('.');
+		String payload = token.substring(0, dot);
+		String signature = token.substring(dot + 1);
+
+		// Claims re-encoded with a different role but the original signature
+		User admin = user();
+		admin.setRole("superuser");
+		String reissued = tokens.issue(admin);
+		String otherPayload = reissued.substring(0, reissued.indexOf('.'));
+		assertThat(tokens.verify(otherPayload + "." + signature)).isEmpty();
+
+		// Flipped signature character
+		String flipped = (signature.charAt(0) == 'A' ? 'B' : 'A') + signature.substring(1);
+		assertThat(tokens.verify(payload + "." + flipped)).isEmpty();
+
+		// Signed with another secret
+		TokenService other = new TokenService("other-secret", Duration.ofHours(1), new ObjectMapper());
+		assertThat(tokens.verify(other.issue(user()))).isEmpty();
+
+		assertThat(tokens.verify(payload)).isEmpty();
+		assertThat(tokens.verify(token + ".x")).isEmpty();
+		assertThat(tokens.verify("!!!." + signature)).isEmpty();
+		assertThat(tokens.verify(null)).isEmpty();
+	}
+
+	private static User user() {
+		return new User("u-1", "ann", "ann@example.com", "secret", "admin");
+	}
+}
@@ -0,0 +1,40 @@
+package com.example.carcircle.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.carcircle.auth.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTests {
+
+	private final RateLimitFilter filter = new RateLimitFilter(
+			new TokenService("test-secret", Duration.ofHours(1), new ObjectMapper()), new SimpleMeterRegistry(),
+			true, "POST /api/auth/login=1/PT1M");
+
+	@Test
+	void otherSpellingsOfALimitedRouteShareItsBucket() throws Exception {
+		assertThat(post("/api/auth/login")).isEqualTo(200);
+		assertThat(post("/api/auth/login;x=1")).isEqualTo(429);
+		assertThat(post("/api/auth/logi%6E")).isEqualTo(429);
+		assertThat(post("/api//auth/login")).isEqualTo(429);
+
+		// Unlisted routes and methods pass through
+		assertThat(post("/api/auth/register")).isEqualTo(200);
+	}
+
+	private int post(String uri) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		request.setRemoteAddr("10.0.0.1");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+}
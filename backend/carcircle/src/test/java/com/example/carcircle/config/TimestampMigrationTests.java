@@ -0,0 +1,88 @@
+package com.example.carcircle.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+
+class TimestampMigrationTests {
+
+	@Test
+	void rewritesStringsInIdOrderedBatchesGuardedByTheValueRead() throws Exception {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		BulkOperations ops = mock(BulkOperations.class);
+		BulkWriteResult result = mock(BulkWriteResult.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "bookings")).thenReturn(ops);
+		when(ops.execute()).thenReturn(result);
+		when(result.getModifiedCount()).thenReturn(2, 1);
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("bookings")))
+				.thenReturn(List.of(new Document("_id", 1).append("createdAt", "2024-01-15T10:00")
+								.append("updatedAt", new Date(0)),
+						new Document("_id", 2).append("createdAt", "not a date").append("endDate", "")))
+				.thenReturn(List.of(new Document("_id", 3).append("createdAt", "2024-01-15T10:00:00Z")));
+
+		TimestampMigration migration = new TimestampMigration(mongoTemplate, true, 2, Duration.ZERO, "Asia/Kolkata");
+		long migrated = migration.migrate("bookings", List.of("createdAt", "endDate", "updatedAt"));
+
+		assertThat(migrated).isEqualTo(3);
+
+		// The second page resumes after the last id of the first, and a short page ends the run
+		ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(2)).find(pages.capture(), eq(Document.class), eq("bookings"));
+		assertThat(pages.getAllValues().get(0).getLimit()).isEqualTo(2);
+		assertThat(pages.getAllValues().get(0).getQueryObject()).doesNotContainKey("$and");
+		assertThat(pages.getAllValues().get(1).getQueryObject().getList("$and", Document.class))
+				.contains(new Document("_id", new Document("$gt", 2)));
+
+		ArgumentCaptor<Query> guards = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(ops, times(3)).updateOne(guards.capture(), updates.capture());
+		verify(ops, times(2)).execute();
+
+		// Zone-less legacy values are read in the configured zone
+		assertThat(guards.getAllValues().get(0).getQueryObject())
+				.isEqualTo(new Document("_id", 1).append("createdAt", "2024-01-15T10:00"));
+		assertThat(updates.getAllValues().get(0).getUpdateObject()).isEqualTo(new Document("$set",
+				new Document("createdAt", Date.from(Instant.parse("2024-01-15T04:30:00Z")))));
+
+		// Unparseable values are left alone; blank ones are cleared
+		assertThat(guards.getAllValues().get(1).getQueryObject()).isEqualTo(new Document("_id", 2).append("endDate", ""));
+		assertThat(updates.getAllValues().get(1).getUpdateObject())
+				.isEqualTo(new Document("$set", new Document("endDate", null)));
+
+		assertThat(updates.getAllValues().get(2).getUpdateObject()).isEqualTo(new Document("$set",
+				new Document("createdAt", Date.from(Instant.parse("2024-01-15T10:00:00Z")))));
+	}
+
+	@Test
+	void aBatchWithNothingToRewriteWritesNothing() throws Exception {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		BulkOperations ops = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "messages")).thenReturn(ops);
+		when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("messages")))
+				.thenReturn(List.of(new Document("_id", 1).append("timestamp", "garbage")));
+
+		TimestampMigration migration = new TimestampMigration(mongoTemplate, true, 10, Duration.ZERO, "");
+
+		assertThat(migration.migrate("messages", List.of("timestamp"))).isZero();
+		verify(ops, times(0)).execute();
+	}
+}
@@ -0,0 +1,209 @@
+package com.example.carcircle.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Runs the proxy against a local stub upstream. The stub picks its behaviour from the
+// "mode" field of the forwarded payload and blocks on latches so the tests can observe
+// streaming and the concurrency limit mid-flight.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.data.mongodb.uri=mongodb://localhost:27017/cars_circle?serverSelectionTimeoutMS=1000")
+class AnthropicProxyControllerTests {
+
+	private static final HttpServer upstream;
+	private static final ExecutorService upstreamExecutor = Executors.newCachedThreadPool();
+	private static final AtomicInteger upstreamCalls = new AtomicInteger();
+	private static volatile String lastApiKey;
+	private static volatile String lastBody;
+	private static volatile CountDownLatch upstreamEntered = new CountDownLatch(1);
+	private static volatile CountDownLatch upstreamRelease = new CountDownLatch(1);
+
+	static {
+		try {
+			upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		upstream.createContext("/v1/complete", AnthropicProxyControllerTests::handleUpstream);
+		upstream.setExecutor(upstreamExecutor);
+		upstream.start();
+	}
+
+	@DynamicPropertySource
+	static void llmProperties(DynamicPropertyRegistry registry) {
+		registry.add("carcircle.llm.endpoint",
+				() -> "http://127.0.0.1:" + upstream.getAddress().getPort() + "/v1/complete");
+		registry.add("carcircle.llm.api-key", () -> "test-key");
+		registry.add("carcircle.llm.max-concurrent", () -> "1");
+		registry.add("carcircle.llm.max-queued", () -> "0");
+	}
+
+	@AfterAll
+	static void stopUpstream() throws InterruptedException {
+		// Let a handler still parked on the latch finish so the pool can drain
+		upstreamRelease.countDown();
+		upstream.stop(0);
+		upstreamExecutor.shutdown();
+		if (!upstreamExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+			upstreamExecutor.shutdownNow();
+		}
+	}
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void streamsUpstreamEventsBeforeTheUpstreamFinishes() throws Exception {
+		resetLatches();
+		HttpResponse<InputStream> response = client.send(proxyRequest("{\"mode\":\"stream\",\"prompt\":\"a\"}"),
+				HttpResponse.BodyHandlers.ofInputStream());
+
+		assertThat(response.statusCode()).isEqualTo(200);
+		assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+				type -> assertThat(type).startsWith("text/event-stream"));
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+			// The stub is still holding the rest of the stream at this point
+			assertThat(reader.readLine()).isEqualTo("data: first");
+			assertThat(upstreamRelease.getCount()).isEqualTo(1);
+			upstreamRelease.countDown();
+			assertThat(reader.readLine()).isEmpty();
+			assertThat(reader.readLine()).isEqualTo("data: second");
+		}
+		assertThat(lastApiKey).isEqualTo("test-key");
+	}
+
+	@Test
+	void rejectsWithServiceUnavailableWhenLimitAndQueueAreFull() throws Exception {
+		resetLatches();
+		CompletableFuture<HttpResponse<String>> first = client.sendAsync(
+				proxyRequest("{\"mode\":\"stream\",\"prompt\":\"b\",\"cache\":false}"),
+				HttpResponse.BodyHandlers.ofString());
+		assertThat(upstreamEntered.await(10, TimeUnit.SECONDS)).isTrue();
+
+		HttpResponse<String> second = client.send(
+				proxyRequest("{\"mode\":\"stream\",\"prompt\":\"b\",\"cache\":false}"),
+				HttpResponse.BodyHandlers.ofString());
+		assertThat(second.statusCode()).isEqualTo(503);
+		assertThat(second.headers().firstValue("Retry-After")).isPresent();
+
+		upstreamRelease.countDown();
+		assertThat(first.get(10, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+	}
+
+	@Test
+	void passesUpstreamErrorsThrough() throws Exception {
+		HttpResponse<String> response = client.send(proxyRequest("{\"mode\":\"error\",\"prompt\":\"c\"}"),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.statusCode()).isEqualTo(529);
+		assertThat(response.body()).contains("overloaded_error");
+	}
+
+	@Test
+	void coalescesConcurrentIdenticalPayloadsAndCachesTheResult() throws Exception {
+		resetLatches();
+		int callsBefore = upstreamCalls.get();
+		CompletableFuture<HttpResponse<String>> first = client.sendAsync(
+				proxyRequest("{\"mode\":\"stream\",\"prompt\":\"d\"}"), HttpResponse.BodyHandlers.ofString());
+		assertThat(upstreamEntered.await(10, TimeUnit.SECONDS)).isTrue();
+		// Same payload with keys in a different order; joins the flight despite max-concurrent=1
+		CompletableFuture<HttpResponse<String>> second = client.sendAsync(
+				proxyRequest("{\"prompt\":\"d\",\"mode\":\"stream\"}"), HttpResponse.BodyHandlers.ofString());
+		Thread.sleep(200);
+		upstreamRelease.countDown();
+
+		HttpResponse<String> leader = first.get(10, TimeUnit.SECONDS);
+		HttpResponse<String> follower = second.get(10, TimeUnit.SECONDS);
+		assertThat(leader.body()).isEqualTo("data: first\n\ndata: second\n\n");
+		assertThat(follower.body()).isEqualTo(leader.body());
+		assertThat(leader.headers().firstValue("X-Cache")).hasValue("MISS");
+		assertThat(follower.headers().firstValue("X-Cache")).hasValue("COALESCED");
+
+		HttpResponse<String> third = client.send(proxyRequest("{\"mode\":\"stream\",\"prompt\":\"d\"}"),
+				HttpResponse.BodyHandlers.ofString());
+		assertThat(third.headers().firstValue("X-Cache")).hasValue("HIT");
+		assertThat(third.body()).isEqualTo(leader.body());
+		assertThat(upstreamCalls.get() - callsBefore).isEqualTo(1);
+	}
+
+	@Test
+	void nonCacheablePayloadsBypassTheCacheAndLoseTheMarker() throws Exception {
+		int callsBefore = upstreamCalls.get();
+		for (int i = 0; i < 2; i++) {
+			HttpResponse<String> response = client.send(
+					proxyRequest("{\"mode\":\"error\",\"prompt\":\"e\",\"cache\":false}"),
+					HttpResponse.BodyHandlers.ofString());
+			assertThat(response.headers().firstValue("X-Cache")).hasValue("BYPASS");
+		}
+		assertThat(upstreamCalls.get() - callsBefore).isEqualTo(2);
+		assertThat(lastBody).doesNotContain("cache");
+	}
+
+	private HttpRequest proxyRequest(String json) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/llm/claude"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private static void resetLatches() {
+		upstreamEntered = new CountDownLatch(1);
+		upstreamRelease = new CountDownLatch(1);
+	}
+
+	private static void handleUpstream(HttpExchange exchange) throws IOException {
+		upstreamCalls.incrementAndGet();
+		lastApiKey = exchange.getRequestHeaders().getFirst("x-api-key");
+		String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+		lastBody = body;
+		if (body.contains("\"error\"")) {
+			byte[] error = "{\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\"}}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(529, error.length);
+			exchange.getResponseBody().write(error);
+			exchange.close();
+			return;
+		}
+		exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+		exchange.sendResponseHeaders(200, 0);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			upstreamEntered.countDown();
+			upstreamRelease.await(10, TimeUnit.SECONDS);
+			out.write("data: second\n\n".getBytes(StandardCharsets.UTF_8));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
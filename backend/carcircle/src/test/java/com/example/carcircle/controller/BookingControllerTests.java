@@ -0,0 +1,100 @@
+package com.example.carcircle.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.service.BookingAvailabilityIndex;
+import com.example.carcircle.service.EntityCache;
+import com.example.carcircle.service.PricingEngine;
+import com.example.carcircle.service.Timestamps;
+
+class BookingControllerTests {
+
+	private BookingRepository bookingRepo;
+	private BookingAvailabilityIndex availability;
+	private BookingController controller;
+
+	@BeforeEach
+	void setUp() {
+		bookingRepo = mock(BookingRepository.class);
+		CarRepository carRepo = mock(CarRepository.class);
+		Car car = new Car("car-1", "Honda", "City", 2022, 1500);
+		when(carRepo.findById("car-1")).thenReturn(Optional.of(car));
+		when(carRepo.streamAllBy()).thenReturn(Stream.of(car));
+		when(bookingRepo.streamByStatusIn(any())).thenReturn(Stream.of(stored()));
+		when(bookingRepo.findById("b-1")).thenAnswer(call -> Optional.of(stored()));
+		availability = new BookingAvailabilityIndex(bookingRepo, carRepo);
+		availability.load();
+
+		PricingEngine pricing = mock(PricingEngine.class);
+		PricingEngine.Quote quote = mock(PricingEngine.Quote.class);
+		when(quote.getTotal()).thenReturn(7500.0);
+		when(pricing.quote(any(), any(), any(), any())).thenReturn(quote);
+
+		controller = new BookingController();
+		ReflectionTestUtils.setField(controller, "bookingRepo", bookingRepo);
+		ReflectionTestUtils.setField(controller, "availability", availability);
+		ReflectionTestUtils.setField(controller, "pricing", pricing);
+		ReflectionTestUtils.setField(controller, "carRepo", carRepo);
+		ReflectionTestUtils.setField(controller, "carCache",
+				new EntityCache<Car>("cars", false, 16, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	void aFailedUpdateKeepsTheStoredSlot() {
+		when(bookingRepo.save(any())).thenThrow(new OptimisticLockingFailureException("version moved"));
+
+		assertThatThrownBy(() -> controller.updateBooking("b-1",
+				booking(null, "2024-02-01", "2024-02-05")))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+
+		// The booking is still in Mongo on its old dates, so those dates stay taken
+		assertThat(availability.tryReserve(booking("b-2", "2024-01-12", "2024-01-13"))).isEqualTo("b-1");
+		assertThat(availability.tryReserve(booking("b-3", "2024-02-02", "2024-02-03"))).isNull();
+	}
+
+	@Test
+	void aPostCannotTakeOverAnExistingBookingsId() {
+		when(bookingRepo.save(any())).thenThrow(new DuplicateKeyException("duplicate"));
+
+		ResponseEntity<?> conflict = controller.addBooking(booking("b-1", "2024-01-12", "2024-01-13"));
+		assertThat(conflict.getStatusCode().value()).isEqualTo(409);
+		assertThat(conflict.getBody()).isEqualTo(Map.of(
+				"error", "Car is already booked for an overlapping period", "conflictingBookingId", "b-1"));
+
+		Booking elsewhere = booking("b-1", "2024-03-01", "2024-03-02");
+		assertThatThrownBy(() -> controller.addBooking(elsewhere)).isInstanceOf(DuplicateKeyException.class);
+		assertThat(elsewhere.getId()).isNotEqualTo("b-1");
+		assertThat(availability.tryReserve(booking("b-2", "2024-01-12", "2024-01-13"))).isEqualTo("b-1");
+	}
+
+	private static Booking stored() {
+		Booking booking = booking("b-1", "2024-01-10", "2024-01-15");
+		booking.setVersion(3L);
+		return booking;
+	}
+
+	private static Booking booking(String id, String start, String end) {
+		return new Booking(id, "car-1", "user-1", Timestamps.parse(start), Timestamps.parse(end), "Confirmed", 0,
+				null, null);
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.carcircle.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+class BookingRepositoryCustomImplTests {
+
+	private static final Instant T1 = Instant.parse("2024-03-01T10:00:00Z");
+	private static final Instant T2 = Instant.parse("2024-02-01T10:00:00Z");
+
+	// Newest first, ties broken by id descending, undated rows last, as Mongo sorts them
+	private static final Comparator<Booking> NEWEST_FIRST = Comparator
+			.comparing(Booking::getCreatedAt, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()))
+			.thenComparing(Booking::getId).reversed();
+
+	@Test
+	void pagesReachUndatedBookingsAfterTheDatedOnes() {
+		List<Booking> rows = List.of(booking("b1", T2), booking("b2", null), booking("b3", T1), booking("b4", T1),
+				booking("b5", null), booking("b6", T2), booking("b7", null));
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Booking.class))).thenAnswer(call -> {
+			Query query = call.getArgument(0);
+			return rows.stream()
+					.filter(row -> matches(query.getQueryObject(), row))
+					.sorted(NEWEST_FIRST)
+					.limit(query.getLimit())
+					.toList();
+		});
+		BookingRepositoryCustomImpl repo = new BookingRepositoryCustomImpl(mongoTemplate);
+
+		List<String> seen = new ArrayList<>();
+		KeysetCursor cursor = null;
+		for (int pages = 0; pages < 10; pages++) {
+			List<Booking> page = repo.findPage(new BookingFilter(), cursor, 2);
+			page.forEach(row -> seen.add(row.getId()));
+			if (page.size() < 2) {
+				break;
+			}
+			Booking last = page.get(page.size() - 1);
+			// Through the encoded form, as the controller hands it to the client
+			cursor = KeysetCursor.decode(new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+		}
+
+		assertThat(seen).containsExactly("b4", "b3", "b6", "b1", "b7", "b5", "b2");
+	}
+
+	// Evaluates the few operators findPage emits: $or, $and, $lt and equality (null also matching missing)
+	private static boolean matches(Document criteria, Booking row) {
+		for (Map.Entry<String, Object> clause : criteria.entrySet()) {
+			Object expected = clause.getValue();
+			boolean matched = switch (clause.getKey()) {
+				case "$or" -> ((List<?>) expected).stream().anyMatch(c -> matches((Document) c, row));
+				case "$and" -> ((List<?>) expected).stream().allMatch(c -> matches((Document) c, row));
+				default -> {
+					Object actual = "id".equals(clause.getKey()) ? row.getId() : row.getCreatedAt();
+					if (expected instanceof Document operator) {
+						yield actual != null && compare(actual, operator.get("$lt")) < 0;
+					}
+					yield Objects.equals(actual, expected);
+				}
+			};
+			if (!matched) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static int compare(Object actual, Object bound) {
+		return ((Comparable<Object>) actual).compareTo(bound);
+	}
+
+	private static Booking booking(String id, Instant createdAt) {
+		Booking booking = new Booking(id, "car-1", "user-1", T2, T1, "Confirmed", 0, null, null);
+		booking.setCreatedAt(createdAt);
+		return booking;
+	}
+}
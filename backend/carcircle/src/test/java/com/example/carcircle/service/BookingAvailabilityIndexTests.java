@@ -0,0 +1,76 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.BookingRepository;
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+
+class BookingAvailabilityIndexTests {
+
+	private BookingAvailabilityIndex index;
+
+	@BeforeEach
+	void setUp() {
+		BookingRepository bookingRepo = mock(BookingRepository.class);
+		CarRepository carRepo = mock(CarRepository.class);
+		when(carRepo.streamAllBy()).thenReturn(Stream.of(
+				new Car("car-1", "Honda", "City", 2022, 1500),
+				new Car("car-2", "BMW", "X1", 2023, 4000)));
+		when(bookingRepo.streamByStatusIn(any())).thenReturn(Stream.of(
+				booking("b-1", "car-1", "2024-01-10", "2024-01-15", "Confirmed")));
+		index = new BookingAvailabilityIndex(bookingRepo, carRepo);
+		index.load();
+	}
+
+	@Test
+	void rejectsOverlappingBookingForSameCar() {
+		assertThat(index.tryReserve(booking("b-2", "car-1", "2024-01-14", "2024-01-16", "Pending"))).isEqualTo("b-1");
+		assertThat(index.tryReserve(booking("b-3", "car-2", "2024-01-14", "2024-01-16", "Pending"))).isNull();
+	}
+
+	@Test
+	void backToBackBookingsDoNotConflict() {
+		assertThat(index.tryReserve(booking("b-2", "car-1", "2024-01-15", "2024-01-18", "Pending"))).isNull();
+		assertThat(index.tryReserve(booking("b-3", "car-1", "2024-01-05", "2024-01-10", "Pending"))).isNull();
+	}
+
+	@Test
+	void updatingABookingDoesNotConflictWithItself() {
+		assertThat(index.tryReserve(booking("b-1", "car-1", "2024-01-12", "2024-01-20", "Active"))).isNull();
+		assertThat(index.tryReserve(booking("b-2", "car-1", "2024-01-10", "2024-01-12", "Pending"))).isNull();
+	}
+
+	@Test
+	void cancelledBookingsFreeTheCar() {
+		index.apply(booking("b-1", "car-1", "2024-01-10", "2024-01-15", "Cancelled"));
+		assertThat(index.availableCars(millis("2024-01-11"), millis("2024-01-12")))
+				.extracting(Car::getId).containsExactly("car-1", "car-2");
+	}
+
+	@Test
+	void findsConflictsBehindLongLegacyOverlaps() {
+		index.apply(booking("legacy", "car-2", "2024-01-01", "2024-02-01", "Active"));
+		index.apply(booking("short", "car-2", "2024-01-05", "2024-01-06", "Active"));
+		assertThat(index.isAvailable("car-2", millis("2024-01-20"), millis("2024-01-21"))).isFalse();
+		assertThat(index.availableCars(millis("2024-01-20"), millis("2024-01-21")))
+				.extracting(Car::getId).containsExactly("car-1");
+	}
+
+	private static long millis(String date) {
+		return Timestamps.toEpochMillis(date);
+	}
+
+	private static Booking booking(String id, String carId, String start, String end, String status) {
+		return new Booking(id, carId, "user-1", Timestamps.parse(start), Timestamps.parse(end), status, 0, null, null);
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.example.carcircle.model.Car;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+
+class BulkImporterTests {
+
+	private BulkImporter importer;
+	private BulkOperations bulk;
+	private final List<Car> inserted = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		bulk = mock(BulkOperations.class);
+		when(mongoTemplate.getConverter())
+				.thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+		when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenReturn(bulk);
+		// The importer reuses its batch list, so keep a copy of what each insert was given
+		when(bulk.insert(anyList())).thenAnswer(call -> {
+			inserted.addAll(call.getArgument(0));
+			return bulk;
+		});
+		when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+		importer = new BulkImporter(mongoTemplate, new ObjectMapper(), mock(ApplicationEventPublisher.class), 1000, 1000);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void reportsBadNdjsonRowsAndInsertsTheRest() throws Exception {
+		String body = """
+				{"make": "Honda", "model": "City", "year": 2022, "price": 1500}
+				{"make": "BMW", "model":
+				{"make": "", "model": "X1", "year": 2023, "price": 4000}
+				""";
+		Map<String, Object> summary = importer.importRows(stream(body), false, Car.class,
+				car -> car.getMake().isBlank() ? "make is required" : null);
+
+		assertThat(summary).containsEntry("rows", 3).containsEntry("inserted", 1L).containsEntry("failed", 2L);
+		assertThat((List<Map<String, Object>>) summary.get("errors"))
+				.extracting(error -> error.get("row")).containsExactly(2, 3);
+		assertThat(inserted).extracting(Car::getModel).containsExactly("City");
+		assertThat(inserted.get(0).getVersion()).isZero();
+	}
+
+	@Test
+	void readsCsvWithHeaderAndQuotedCells() throws Exception {
+		String body = "make,model,year,price\r\n\"Mercedes, Benz\",\"C \"\"Class\"\"\",2021,5200\r\n";
+		importer.importRows(stream(body), true, Car.class, car -> null);
+
+		assertThat(inserted).hasSize(1);
+		Car car = inserted.get(0);
+		assertThat(car.getMake()).isEqualTo("Mercedes, Benz");
+		assertThat(car.getModel()).isEqualTo("C \"Class\"");
+		assertThat(car.getYear()).isEqualTo(2021);
+		assertThat(car.getPrice()).isEqualTo(5200.0);
+	}
+
+	@Test
+	void rowsWaitingForTheirBatchAreRejectedWhenTheUploadBreaksOff() {
+		List<Car> rejected = new ArrayList<>();
+		InputStream broken = new SequenceInputStream(
+				stream("{\"make\": \"Honda\", \"model\": \"City\", \"year\": 2022, \"price\": 1500}\n"),
+				new InputStream() {
+					@Override
+					public int read() throws IOException {
+						throw new IOException("connection reset");
+					}
+				});
+		assertThatThrownBy(() -> importer.importRows(broken, false, Car.class, new BulkImporter.RowHandler<>() {
+			@Override
+			public String prepare(Car car) {
+				return null;
+			}
+
+			@Override
+			public void rejected(Car car) {
+				rejected.add(car);
+			}
+		})).isInstanceOf(IOException.class);
+
+		assertThat(inserted).isEmpty();
+		assertThat(rejected).extracting(Car::getModel).containsExactly("City");
+	}
+
+	private static ByteArrayInputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+}
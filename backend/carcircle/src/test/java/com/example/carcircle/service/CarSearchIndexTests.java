@@ -0,0 +1,112 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.example.carcircle.model.Car;
+import com.example.carcircle.model.CarRepository;
+import com.example.carcircle.model.CarSearch;
+
+class CarSearchIndexTests {
+
+	private CarSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		CarRepository carRepo = mock(CarRepository.class);
+		when(carRepo.streamAllBy()).thenReturn(Stream.of(
+				new Car("car-1", "Honda", "City", 2022, 1500),
+				new Car("car-2", "Honda", "Civic", 2019, 2500),
+				new Car("car-3", "BMW", "X1", 2023, 4000),
+				new Car("car-4", "Hyundai", "Creta", 2021, 2000)));
+		index = new CarSearchIndex(carRepo, new double[] {0, 2000, 3000});
+		index.load();
+	}
+
+	@Test
+	void filtersByPrefixAndRangesAndSorts() {
+		CarSearch query = new CarSearch();
+		query.setMake("h");
+		query.setMaxPrice(2500.0);
+		query.setSort("price");
+		query.setOrder("desc");
+		assertThat(ids(index.search(query))).containsExactly("car-2", "car-4", "car-1");
+
+		query.setModel("ci");
+		query.setMinYear(2020);
+		assertThat(ids(index.search(query))).containsExactly("car-1");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void facetsIgnoreTheirOwnFilter() {
+		CarSearch query = new CarSearch();
+		query.setMake("honda");
+		query.setMinPrice(2000.0);
+		Map<String, Object> result = index.search(query);
+
+		assertThat(result).containsEntry("total", 1);
+		Map<String, Object> facets = (Map<String, Object>) result.get("facets");
+		assertThat((Map<String, Integer>) facets.get("make"))
+				.containsExactly(Map.entry("BMW", 1), Map.entry("Honda", 1), Map.entry("Hyundai", 1));
+		assertThat((List<Map<String, Object>>) facets.get("price"))
+				.extracting(bucket -> bucket.get("count")).containsExactly(0, 1, 1, 0);
+	}
+
+	@Test
+	void pagesInSortOrder() {
+		CarSearch query = new CarSearch();
+		query.setSort("year");
+		query.setSize(2);
+		query.setPage(1);
+		assertThat(ids(index.search(query))).containsExactly("car-1", "car-3");
+	}
+
+	@Test
+	void savesAndDeletesUpdateTheIndex() {
+		index.apply(new Car("car-3", "BMW", "X1", 2023, 1000));
+		index.remove("car-1");
+		index.apply(new Car("car-5", "Tata", "Nexon", 2024, 1200));
+
+		CarSearch query = new CarSearch();
+		query.setMaxPrice(1500.0);
+		query.setSort("price");
+		assertThat(ids(index.search(query))).containsExactly("car-3", "car-5");
+	}
+
+	@Test
+	void aFailedLoadIsRetriedUntilItSucceeds() {
+		CarRepository carRepo = mock(CarRepository.class);
+		when(carRepo.streamAllBy())
+				.thenThrow(new DataAccessResourceFailureException("mongo down"))
+				.thenReturn(Stream.of(new Car("car-1", "Honda", "City", 2022, 1500)));
+		CarSearchIndex retried = new CarSearchIndex(carRepo, new double[] {0});
+
+		retried.load();
+		assertThat(retried.isReady()).isFalse();
+
+		retried.retryLoad();
+		assertThat(retried.isReady()).isTrue();
+		assertThat(ids(retried.search(new CarSearch()))).containsExactly("car-1");
+
+		// Once loaded, further ticks leave the index alone
+		retried.retryLoad();
+		verify(carRepo, times(2)).streamAllBy();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> ids(Map<String, Object> result) {
+		return ((List<Car>) result.get("items")).stream().map(Car::getId).toList();
+	}
+}
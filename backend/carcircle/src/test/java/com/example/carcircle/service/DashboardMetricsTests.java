@@ -0,0 +1,143 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.Message;
+
+class DashboardMetricsTests {
+
+	private static final Instant MARCH = Instant.parse("2026-03-10T10:00:00Z");
+	private static final Instant APRIL = Instant.parse("2026-04-02T10:00:00Z");
+
+	private MongoTemplate mongoTemplate;
+	private DashboardMetrics metrics;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		metrics = new DashboardMetrics(mongoTemplate);
+	}
+
+	@Test
+	void bookingSavesMoveTheirContributionBetweenCounters() {
+		metrics.record(c -> c.putBooking(booking("b-1", "u-1", "Confirmed", 1000, MARCH)));
+		metrics.record(c -> c.putBooking(booking("b-2", "u-2", "Active", 500, APRIL)));
+		assertThat(metrics.activeRentals()).isEqualTo(2);
+		assertThat(metrics.activeRentalsFor("u-1")).isEqualTo(1);
+		assertThat(metrics.revenue(YearMonth.of(2026, 3))).isEqualTo(1000);
+
+		// Re-saving the same id replaces its old contribution rather than adding to it
+		metrics.record(c -> c.putBooking(booking("b-1", "u-1", "Completed", 1200, MARCH)));
+		assertThat(metrics.activeRentals()).isEqualTo(1);
+		assertThat(metrics.activeRentalsFor("u-1")).isZero();
+		assertThat(metrics.completedTripsFor("u-1")).isEqualTo(1);
+		assertThat(metrics.revenue(YearMonth.of(2026, 3))).isEqualTo(1200);
+
+		metrics.record(c -> c.putBooking(booking("b-2", "u-2", "Cancelled", 500, APRIL)));
+		assertThat(metrics.activeRentals()).isZero();
+		assertThat(metrics.revenue(YearMonth.of(2026, 4))).isZero();
+
+		metrics.record(c -> c.removeBooking("b-1"));
+		metrics.record(c -> c.removeBooking("missing"));
+		assertThat(metrics.completedTripsFor("u-1")).isZero();
+		assertThat(metrics.revenue(YearMonth.of(2026, 3))).isZero();
+		assertThat(metrics.recentBookings()).extracting(Booking::getId).containsExactly("b-2");
+	}
+
+	@Test
+	void jobCountersFollowStatusAndAssignment() {
+		metrics.record(c -> c.putJob(job("j-1", "Pending", "High", null)));
+		metrics.record(c -> c.putJob(job("j-2", "In Progress", "Low", "mech-1")));
+		assertThat(metrics.openJobs()).isEqualTo(2);
+		assertThat(metrics.pendingJobs()).isEqualTo(1);
+		assertThat(metrics.urgentOpenJobs()).isEqualTo(1);
+
+		metrics.jobsAssigned(Map.of("j-1", "mech-1"));
+		assertThat(metrics.openJobsFor("mech-1")).isEqualTo(2);
+
+		Maintenance done = job("j-1", "Completed", "High", "mech-1");
+		done.setCompletedAt(MARCH);
+		metrics.record(c -> c.putJob(done));
+		assertThat(metrics.openJobs()).isEqualTo(1);
+		assertThat(metrics.pendingJobs()).isZero();
+		assertThat(metrics.openJobsFor("mech-1")).isEqualTo(1);
+		assertThat(metrics.urgentOpenJobs()).isZero();
+		assertThat(metrics.completedJobsOn(LocalDate.of(2026, 3, 10))).isEqualTo(1);
+
+		metrics.record(c -> c.removeJob("j-1"));
+		metrics.record(c -> c.removeJob("j-2"));
+		assertThat(metrics.openJobs()).isZero();
+		assertThat(metrics.openJobsFor("mech-1")).isZero();
+		assertThat(metrics.completedJobsOn(LocalDate.of(2026, 3, 10))).isZero();
+	}
+
+	@Test
+	void unreadMessagesAreCountedPerAudience() {
+		Message direct = new Message("m-1", "u-2", "u-1", "hi");
+		Message toMechanics = new Message("m-2", "u-2", null, "shift change");
+		toMechanics.setToRole("mechanic");
+		Message broadcast = new Message("m-3", "u-2", Message.EVERYONE, "maintenance window");
+		List.of(direct, toMechanics, broadcast).forEach(m -> metrics.record(c -> c.putMessage(m)));
+
+		assertThat(metrics.unreadMessages()).isEqualTo(3);
+		assertThat(metrics.unreadFor("u-1", "customer")).isEqualTo(2);
+		assertThat(metrics.unreadFor("u-3", "mechanic")).isEqualTo(2);
+
+		metrics.messagesRead(List.of("m-1"));
+		direct.setRead(true);
+		metrics.record(c -> c.putMessage(direct));
+		assertThat(metrics.unreadFor("u-1", "customer")).isEqualTo(1);
+
+		metrics.messagesDeleted(List.of("m-3"));
+		assertThat(metrics.unreadMessages()).isEqualTo(1);
+		assertThat(metrics.unreadFor("u-1", null)).isZero();
+	}
+
+	@Test
+	void reconcileRebuildsFromMongoAndKeepsChangesMadeMeanwhile() {
+		metrics.record(c -> c.putBooking(booking("stale", "u-9", "Active", 999, MARCH)));
+		when(mongoTemplate.stream(any(Query.class), eq(Booking.class))).thenAnswer(call -> {
+			// A save that lands while the rebuild is streaming
+			metrics.record(c -> c.putBooking(booking("b-new", "u-2", "Active", 300, APRIL)));
+			return Stream.of(booking("b-1", "u-1", "Confirmed", 1000, MARCH));
+		});
+
+		metrics.reconcile();
+
+		assertThat(metrics.activeRentals()).isEqualTo(2);
+		assertThat(metrics.activeRentalsFor("u-9")).isZero();
+		assertThat(metrics.activeRentalsFor("u-1")).isEqualTo(1);
+		assertThat(metrics.activeRentalsFor("u-2")).isEqualTo(1);
+		assertThat(metrics.revenue(YearMonth.of(2026, 3))).isEqualTo(1000);
+		assertThat(metrics.revenue(YearMonth.of(2026, 4))).isEqualTo(300);
+	}
+
+	private static Booking booking(String id, String userId, String status, double amount, Instant createdAt) {
+		Booking booking = new Booking(id, "car-1", userId, createdAt, createdAt.plusSeconds(86400), status, amount,
+				"Mumbai", userId + "@example.com");
+		booking.setCreatedAt(createdAt);
+		return booking;
+	}
+
+	private static Maintenance job(String id, String status, String priority, String mechanic) {
+		return new Maintenance(id, "car-1", "u-1", "Brakes", priority, status, mechanic, APRIL);
+	}
+}
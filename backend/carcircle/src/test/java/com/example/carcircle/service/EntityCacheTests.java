@@ -0,0 +1,96 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class EntityCacheTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+	private final Function<String, Optional<String>> loader = key -> {
+		loads.incrementAndGet();
+		return Optional.of("value-" + key);
+	};
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntryOfASegment() {
+		// 32 entries over 16 segments leaves room for two per segment
+		EntityCache<String> cache = new EntityCache<>("test", true, 32, Duration.ofHours(1));
+		List<String> keys = sameSegmentKeys(3);
+
+		cache.get(keys.get(0), loader);
+		cache.get(keys.get(1), loader);
+		cache.get(keys.get(0), loader);
+		cache.get(keys.get(2), loader);
+
+		assertThat(cache.getIfPresent(keys.get(0))).contains("value-" + keys.get(0));
+		assertThat(cache.getIfPresent(keys.get(1))).isEmpty();
+		assertThat(cache.getIfPresent(keys.get(2))).isPresent();
+		assertThat(cache.stats()).containsEntry("evictions", 1L).containsEntry("size", 2);
+	}
+
+	@Test
+	void entriesExpireAfterTheTtl() {
+		EntityCache<String> fresh = new EntityCache<>("fresh", true, 16, Duration.ofHours(1));
+		fresh.get("a", loader);
+		fresh.get("a", loader);
+		assertThat(loads).hasValue(1);
+		assertThat(fresh.stats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+
+		EntityCache<String> expired = new EntityCache<>("expired", true, 16, Duration.ZERO);
+		expired.get("a", loader);
+		expired.get("a", loader);
+		assertThat(loads).hasValue(3);
+		assertThat(expired.stats()).containsEntry("expirations", 1L).containsEntry("hits", 0L);
+	}
+
+	@Test
+	void invalidationDropsEntriesAndLoadsThatRacedIt() {
+		EntityCache<String> cache = new EntityCache<>("test", true, 16, Duration.ofHours(1));
+		cache.get("a", loader);
+		cache.get("b", loader);
+
+		cache.invalidate("a");
+		assertThat(cache.getIfPresent("a")).isEmpty();
+		assertThat(cache.getIfPresent("b")).isPresent();
+
+		// A writer invalidates while this load is still reading the old document
+		cache.get("a", key -> {
+			cache.invalidate(key);
+			return Optional.of("stale");
+		});
+		assertThat(cache.getIfPresent("a")).isEmpty();
+
+		cache.invalidateAll();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void aDisabledCacheAlwaysLoads() {
+		EntityCache<String> cache = new EntityCache<>("off", false, 16, Duration.ofHours(1));
+		cache.get("a", loader);
+		cache.get("a", loader);
+		cache.put("b", "value-b");
+
+		assertThat(loads).hasValue(2);
+		assertThat(cache.getIfPresent("b")).isEmpty();
+		assertThat(cache.size()).isZero();
+	}
+
+	private static List<String> sameSegmentKeys(int count) {
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; keys.size() < count; i++) {
+			if (EntityCache.segmentIndex("key-" + i) == 0) {
+				keys.add("key-" + i);
+			}
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.bulk.BulkWriteResult;
+
+import com.example.carcircle.auth.User;
+import com.example.carcircle.auth.UserRepository;
+import com.example.carcircle.model.Maintenance;
+import com.example.carcircle.model.MaintenanceRepository;
+
+class MaintenanceDispatcherTests {
+
+	private MaintenanceDispatcher dispatcher;
+	private MaintenanceRepository maintenanceRepo;
+	private UserRepository userRepo;
+	private MongoTemplate mongoTemplate;
+
+	@BeforeEach
+	void setUp() {
+		maintenanceRepo = mock(MaintenanceRepository.class);
+		userRepo = mock(UserRepository.class);
+		mongoTemplate = mock(MongoTemplate.class);
+		when(userRepo.findByRole("mechanic")).thenReturn(List.of(
+				new User("m-1", "ana", "ana@example.com", "x", "mechanic"),
+				new User("m-2", "raj", "raj@example.com", "x", "mechanic")));
+		when(maintenanceRepo.findByStatus("In Progress")).thenReturn(List.of(
+				job("j-0", "Low", "In Progress", "m-1", null)));
+		when(maintenanceRepo.findByStatus("Pending")).thenReturn(List.of());
+		// Large batch size so nothing flushes during a test
+		dispatcher = new MaintenanceDispatcher(maintenanceRepo, userRepo, mongoTemplate,
+				new DashboardMetrics(mongoTemplate), 1, 1000);
+		dispatcher.rebuild();
+	}
+
+	@Test
+	void newJobGoesToLeastLoadedMechanic() {
+		Maintenance job = job("j-1", "Medium", "Pending", null, null);
+		dispatcher.assignNew(job);
+		assertThat(job.getAssignedMechanic()).isEqualTo("m-2");
+	}
+
+	@Test
+	void jobsQueueWhenEveryMechanicIsFull() {
+		save(job("j-1", "Medium", "Pending", null, null));
+		Maintenance job = job("j-2", "High", "Pending", null, null);
+		dispatcher.assignNew(job);
+		assertThat(job.getAssignedMechanic()).isNull();
+		dispatcher.apply(job);
+		assertThat(dispatcher.stats()).containsEntry("queueDepth", 1);
+	}
+
+	@Test
+	void freedCapacityGoesToMostUrgentThenEarliestDeadline() {
+		save(job("j-1", "Medium", "Pending", null, null));
+		dispatcher.apply(job("j-2", "Low", "Pending", null, null));
+		dispatcher.apply(job("j-3", "Urgent", "Pending", null, "2024-02-01"));
+		dispatcher.apply(job("j-4", "Urgent", "Pending", null, "2024-01-20"));
+		assertThat(dispatcher.stats()).containsEntry("nextJob", "j-4");
+
+		dispatcher.apply(job("j-0", "Low", "Completed", "m-1", null));
+		Map<String, Object> stats = dispatcher.stats();
+		assertThat(stats).containsEntry("queueDepth", 2).containsEntry("nextJob", "j-3").containsEntry("unflushed", 1);
+		assertThat(stats.get("mechanicLoad")).isEqualTo(Map.of("m-1", 1, "m-2", 1));
+	}
+
+	@Test
+	void reprioritisedJobMovesInTheQueue() {
+		save(job("j-1", "Medium", "Pending", null, null));
+		dispatcher.apply(job("j-2", "Low", "Pending", null, null));
+		dispatcher.apply(job("j-3", "Medium", "Pending", null, null));
+		dispatcher.apply(job("j-2", "Urgent", "Pending", null, null));
+		assertThat(dispatcher.stats()).containsEntry("queueDepth", 2).containsEntry("nextJob", "j-2");
+	}
+
+	@Test
+	void eventsDuringARebuildAreReplayedOntoTheFreshState() {
+		when(maintenanceRepo.findByStatus("Pending")).thenAnswer(call -> {
+			// Saved while the rebuild was reading; it is not in the rows read
+			dispatcher.apply(job("j-9", "High", "Pending", "m-2", null));
+			return List.of();
+		});
+		dispatcher.rebuild();
+		assertThat(dispatcher.stats().get("mechanicLoad")).isEqualTo(Map.of("m-1", 1, "m-2", 1));
+	}
+
+	@Test
+	void onlyAssignmentsThatLandAreReported() {
+		DashboardMetrics metrics = mock(DashboardMetrics.class);
+		BulkOperations bulk = mock(BulkOperations.class);
+		BulkWriteResult result = mock(BulkWriteResult.class);
+		when(mongoTemplate.bulkOps(any(), eq(Maintenance.class))).thenReturn(bulk);
+		when(bulk.execute()).thenReturn(result);
+		when(result.getModifiedCount()).thenReturn(1);
+		// j-2 was assigned by hand before the flush, so its guarded update missed
+		when(mongoTemplate.find(any(Query.class), eq(Maintenance.class))).thenReturn(List.of(
+				job("j-1", "Medium", "Pending", "m-2", null), job("j-2", "Medium", "Pending", "m-9", null)));
+		dispatcher = new MaintenanceDispatcher(maintenanceRepo, userRepo, mongoTemplate, metrics, 2, 1000);
+		dispatcher.rebuild();
+		dispatcher.apply(job("j-1", "Medium", "Pending", null, null));
+		dispatcher.apply(job("j-2", "Medium", "Pending", null, null));
+
+		dispatcher.flush();
+		verify(metrics).jobsAssigned(Map.of("j-1", "m-2"));
+	}
+
+	private void save(Maintenance job) {
+		dispatcher.assignNew(job);
+		dispatcher.apply(job);
+	}
+
+	private static Maintenance job(String id, String priority, String status, String mechanic, String deadline) {
+		return new Maintenance(id, "car-1", "c-1", "Brakes", priority, status, mechanic,
+				deadline == null ? null : Timestamps.parse(deadline));
+	}
+}
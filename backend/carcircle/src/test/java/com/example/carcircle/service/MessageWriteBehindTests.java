@@ -0,0 +1,118 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.carcircle.model.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageWriteBehindTests {
+
+	@TempDir
+	Path journalDir;
+
+	private MongoTemplate mongoTemplate;
+	private BulkOperations bulk;
+	private MessageWriteBehind writer;
+
+	@BeforeEach
+	void setUp() {
+		mongoTemplate = mock(MongoTemplate.class);
+		bulk = mock(BulkOperations.class);
+		when(bulk.insert(anyList())).thenReturn(bulk);
+		when(mongoTemplate.bulkOps(any(), eq(Message.class))).thenReturn(bulk);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (writer != null) {
+			writer.shutdown();
+		}
+	}
+
+	@Test
+	void acceptedMessagesAreInsertedInBatchesAndLeaveTheJournal() throws Exception {
+		writer = writer(3);
+		Message first = writer.enqueue(new Message(null, "u1", "u2", "hello"));
+		writer.enqueue(new Message(null, "u1", "u2", "again"));
+		writer.enqueue(new Message(null, "u2", "u1", "hi"));
+
+		assertThat(first.getId()).hasSize(24);
+		List<Message> inserted = insertedBatch();
+		assertThat(inserted).hasSize(3).first().isSameAs(first);
+		assertThat(journalBytes()).isZero();
+		assertThat(writer.pending()).isZero();
+	}
+
+	@Test
+	void unwrittenMessagesAreReplayedOnRestart() throws Exception {
+		when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("connection refused"));
+		writer = writer(2);
+		String a = writer.enqueue(new Message(null, "u1", "u2", "one")).getId();
+		String b = writer.enqueue(new Message(null, "u1", "u2", "two")).getId();
+		assertThatThrownBy(() -> writer.enqueue(new Message(null, "u1", "u2", "three")))
+				.isInstanceOf(RejectedExecutionException.class);
+		writer.shutdown();
+		// A record the crash cut short was never acknowledged and is skipped
+		try (var files = Files.list(journalDir)) {
+			Files.writeString(files.findFirst().orElseThrow(), "{\"id\":\"65", StandardOpenOption.APPEND);
+		}
+
+		setUp();
+		writer = writer(2);
+		assertThat(insertedBatch()).extracting(Message::getId).containsExactly(a, b);
+		assertThat(insertedBatch().get(0).getConversationKey()).isEqualTo("u1|u2");
+	}
+
+	private MessageWriteBehind writer(int batchSize) throws Exception {
+		MessageWriteBehind started = new MessageWriteBehind(mongoTemplate, mock(ApplicationEventPublisher.class),
+				Jackson2ObjectMapperBuilder.json().build(), new SimpleMeterRegistry(), true, batchSize,
+				Duration.ofSeconds(10), batchSize, journalDir, 1 << 20, false, Duration.ofSeconds(2));
+		started.start();
+		return started;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Message> insertedBatch() {
+		ArgumentCaptor<List<Message>> batch = ArgumentCaptor.forClass(List.class);
+		verify(bulk, timeout(5000)).insert(batch.capture());
+		return batch.getValue();
+	}
+
+	private long journalBytes() throws Exception {
+		verify(bulk, timeout(5000)).execute();
+		Thread.sleep(100);
+		try (var files = Files.list(journalDir)) {
+			long total = 0;
+			for (Path file : (Iterable<Path>) files::iterator) {
+				total += Files.size(file);
+			}
+			return total;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoCommandMetricsTests {
+
+	private SimpleMeterRegistry registry;
+	private MongoCommandMetrics metrics;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		metrics = new MongoCommandMetrics(registry);
+	}
+
+	@Test
+	void recordsDocumentsPerBatchByCollectionAndCommand() {
+		metrics.commandSucceeded(succeeded("find",
+				"{cursor: {id: 1, ns: 'cars_circle.bookings', firstBatch: [{a: 1}, {a: 2}, {a: 3}]}, ok: 1}"));
+		metrics.commandSucceeded(succeeded("getMore",
+				"{cursor: {id: 0, ns: 'cars_circle.bookings', nextBatch: [{a: 4}, {a: 5}]}, ok: 1}"));
+		metrics.commandSucceeded(succeeded("find", "{cursor: {id: 0, ns: 'cars_circle.cars', firstBatch: []}, ok: 1}"));
+		// Writes carry no cursor and are not counted
+		metrics.commandSucceeded(succeeded("insert", "{n: 1, ok: 1}"));
+
+		DistributionSummary find = documents("bookings", "find");
+		assertThat(find.count()).isEqualTo(1);
+		assertThat(find.totalAmount()).isEqualTo(3);
+		assertThat(documents("bookings", "getMore").totalAmount()).isEqualTo(2);
+		assertThat(documents("cars", "find").count()).isEqualTo(1);
+		assertThat(registry.find("carcircle.mongo.documents").tag("command", "insert").summary()).isNull();
+	}
+
+	@Test
+	void countsOnlyCommandsFromTheCountingThread() throws Exception {
+		CommandStartedEvent started = mock(CommandStartedEvent.class);
+		metrics.commandStarted(started);
+
+		metrics.startCounting();
+		metrics.commandStarted(started);
+		metrics.commandStarted(started);
+		CompletableFuture.runAsync(() -> metrics.commandStarted(started)).get();
+
+		assertThat(metrics.stopCounting()).isEqualTo(2);
+		metrics.commandStarted(started);
+		assertThat(metrics.stopCounting()).isZero();
+	}
+
+	private DistributionSummary documents(String collection, String command) {
+		return registry.get("carcircle.mongo.documents").tag("collection", collection).tag("command", command).summary();
+	}
+
+	private static CommandSucceededEvent succeeded(String command, String response) {
+		CommandSucceededEvent event = mock(CommandSucceededEvent.class);
+		when(event.getCommandName()).thenReturn(command);
+		when(event.getResponse()).thenReturn(BsonDocument.parse(response));
+		return event;
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.carcircle.model.Booking;
+import com.example.carcircle.model.Car;
+
+class PricingEngineTests {
+
+	private static final Car CITY = new Car("car-1", "Honda", "City", 2022, 1000);
+
+	private PricingEngine engine;
+
+	@BeforeEach
+	void setUp() {
+		engine = new PricingEngine(null, null, 0.5, 0.5, "7:0.10,30:0.25", 365);
+		for (int i = 1; i <= 4; i++) {
+			engine.carAdded("car-" + i);
+		}
+	}
+
+	@Test
+	void quietDaysCostTheDailyRate() {
+		PricingEngine.Quote quote = engine.quote(CITY, Timestamps.parse("2024-03-01"), Timestamps.parse("2024-03-04"), null);
+		assertThat(quote.getDays()).isEqualTo(3);
+		assertThat(quote.getDemandSurcharge()).isZero();
+		assertThat(quote.getTotal()).isEqualTo(3000.0);
+	}
+
+	@Test
+	void busyDaysAddASurcharge() {
+		// Three of four cars out on 2 March: 75% utilization, halfway from threshold to full
+		engine.apply(booking("b-1", "car-2", "2024-03-01", "2024-03-03", "Confirmed"));
+		engine.apply(booking("b-2", "car-3", "2024-03-02", "2024-03-03", "Active"));
+		engine.apply(booking("b-3", "car-4", "2024-03-02", "2024-03-05", "Pending"));
+		engine.apply(booking("b-4", "car-1", "2024-03-02", "2024-03-05", "Cancelled"));
+
+		PricingEngine.Quote quote = engine.quote(CITY, Timestamps.parse("2024-03-02"), Timestamps.parse("2024-03-03"), null);
+		assertThat(quote.getPeakUtilization()).isEqualTo(0.75);
+		assertThat(quote.getDemandSurcharge()).isEqualTo(250.0);
+		assertThat(quote.getTotal()).isEqualTo(1250.0);
+	}
+
+	@Test
+	void requotingABookingLeavesOutItsOwnDays() {
+		engine.apply(booking("b-1", "car-2", "2024-03-02", "2024-03-03", "Confirmed"));
+		engine.apply(booking("b-2", "car-3", "2024-03-02", "2024-03-03", "Confirmed"));
+		engine.apply(booking("b-3", "car-1", "2024-03-02", "2024-03-03", "Confirmed"));
+
+		assertThat(engine.quote(CITY, Timestamps.parse("2024-03-02"), Timestamps.parse("2024-03-03"), "b-3")
+				.getDemandSurcharge()).isZero();
+		engine.remove("b-2");
+		assertThat(engine.quote(CITY, Timestamps.parse("2024-03-02"), Timestamps.parse("2024-03-03"), null)
+				.getDemandSurcharge()).isZero();
+	}
+
+	@Test
+	void longRentalsAreDiscounted() {
+		PricingEngine.Quote quote = engine.quote(CITY, Timestamps.parse("2024-03-01"), Timestamps.parse("2024-03-11"), null);
+		assertThat(quote.getDiscountRate()).isEqualTo(0.10);
+		assertThat(quote.getTotal()).isEqualTo(9000.0);
+		assertThatThrownBy(() -> engine.quote(CITY, Timestamps.parse("2024-03-11"), Timestamps.parse("2024-03-01"), null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static Booking booking(String id, String carId, String start, String end, String status) {
+		return new Booking(id, carId, "user-1", Timestamps.parse(start), Timestamps.parse(end), status, 0, "Pune", null);
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.carcircle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+	private final RateLimiter limiter = new RateLimiter(3, Duration.ofSeconds(3), clock::get);
+
+	@Test
+	void allowsABurstUpToTheLimitThenReportsTheWait() {
+		assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+		assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+		assertThat(limiter.tryAcquire("10.0.0.1")).isZero();
+		assertThat(limiter.tryAcquire("10.0.0.1")).isEqualTo(SECOND);
+
+		// Other callers have their own bucket
+		assertThat(limiter.tryAcquire("10.0.0.2")).isZero();
+	}
+
+	@Test
+	void refillsOneTokenPerEmissionInterval() {
+		for (int i = 0; i < 3; i++) {
+			limiter.tryAcquire("user-1");
+		}
+		clock.addAndGet(SECOND / 2);
+		assertThat(limiter.tryAcquire("user-1")).isEqualTo(SECOND / 2);
+
+		clock.addAndGet(SECOND / 2);
+		assertThat(limiter.tryAcquire("user-1")).isZero();
+		assertThat(limiter.tryAcquire("user-1")).isEqualTo(SECOND);
+
+		// A long pause refills only up to the limit
+		clock.addAndGet(60 * SECOND);
+		for (int i = 0; i < 3; i++) {
+			assertThat(limiter.tryAcquire("user-1")).isZero();
+		}
+		assertThat(limiter.tryAcquire("user-1")).isPositive();
+	}
+
+	@Test
+	void evictsOnlyBucketsThatHaveRefilled() {
+		limiter.tryAcquire("idle");
+		clock.addAndGet(SECOND / 2);
+		limiter.tryAcquire("busy");
+		limiter.tryAcquire("busy");
+
+		clock.addAndGet(SECOND / 2);
+		assertThat(limiter.evictIdle()).isEqualTo(1);
+		assertThat(limiter.size()).isEqualTo(1);
+
+		// The surviving bucket still remembers its debt
+		assertThat(limiter.tryAcquire("busy")).isZero();
+		assertThat(limiter.tryAcquire("busy")).isEqualTo(SECOND / 2);
+	}
+}
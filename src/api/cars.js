@@ -104,3 +104,22 @@ export async function deleteVehicle(id) {
     return { error: "Failed to delete vehicle" };
   }
 }
+
+// Server-side search: { q, make, model, minYear, maxYear, minPrice, maxPrice, sort, order, page, size }
+export async function searchCars(params = {}) {
+  try {
+    const query = new URLSearchParams(
+      Object.entries(params).filter(([, value]) => value !== undefined && value !== null && value !== "")
+    );
+    const res = await fetch(`/api/vehicles/search?${query}`);
+    if (!res.ok) {
+      const msg = await res.text();
+      console.error("Failed to search cars:", msg);
+      return { total: 0, items: [], facets: { make: {}, price: [] } };
+    }
+    return await res.json();
+  } catch (e) {
+    console.error("Failed to search cars:", e);
+    return { total: 0, items: [], facets: { make: {}, price: [] } };
+  }
+}
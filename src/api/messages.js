@@ -1,9 +1,11 @@
 import { toast } from "../hooks/use-toast";
 
 // Shared messages API
-export async function getMessages(role) {
+export async function getMessages(role, userId) {
   try {
-    const res = await fetch(`/api/messages?role=${role || "all"}`);
+    const params = new URLSearchParams({ role: role || "all" });
+    if (userId) params.set("userId", userId);
+    const res = await fetch(`/api/messages?${params}`);
     if (!res.ok) {
       console.error("Failed to get messages");
       return [];
@@ -16,6 +18,21 @@ export async function getMessages(role) {
   }
 }
 
+export async function getUnreadCount(userId, role) {
+  try {
+    const params = new URLSearchParams();
+    if (userId) params.set("userId", userId);
+    if (role) params.set("role", role);
+    const res = await fetch(`/api/messages/unread-count?${params}`);
+    if (!res.ok) return 0;
+    const data = await res.json();
+    return data?.unread || 0;
+  } catch (e) {
+    console.error("Failed to get unread count:", e);
+    return 0;
+  }
+}
+
 export async function getMessagesByReceiver(receiverId) {
   try {
     const res = await fetch(`/api/messages/receiver/${receiverId}`);
@@ -46,21 +63,44 @@ export async function getMessagesBySender(senderId) {
   }
 }
 
-export async function getConversation(user1, user2) {
+// Returns { messages, nextCursor }; pass nextCursor back in to load older messages.
+export async function getConversation(user1, user2, cursor) {
   try {
-    const res = await fetch(`/api/messages/conversation?user1=${user1}&user2=${user2}`);
+    const params = new URLSearchParams({ user1, user2 });
+    if (cursor) params.set("cursor", cursor);
+    const res = await fetch(`/api/messages/conversation?${params}`);
     if (!res.ok) {
       console.error("Failed to get conversation");
-      return [];
+      return { messages: [], nextCursor: null };
     }
     const data = await res.json();
-    return Array.isArray(data) ? data : [];
+    return {
+      messages: Array.isArray(data?.messages) ? data.messages : [],
+      nextCursor: data?.nextCursor || null
+    };
   } catch (e) {
     console.error("Failed to get conversation:", e);
-    return [];
+    return { messages: [], nextCursor: null };
   }
 }
 
+// Opens a live inbox; onMessage is called for every new message addressed to this
+// user, their role, or everyone. Returns a function that closes the stream.
+export function subscribeToMessages(userId, role, onMessage) {
+  const params = new URLSearchParams();
+  if (userId) params.set("userId", userId);
+  if (role) params.set("role", role);
+  const source = new EventSource(`/api/messages/stream?${params}`);
+  source.addEventListener("message", (event) => {
+    try {
+      onMessage(JSON.parse(event.data));
+    } catch (e) {
+      console.error("Failed to parse pushed message:", e);
+    }
+  });
+  return () => source.close();
+}
+
 export async function sendMessage(message) {
   try {
     const res = await fetch("/api/messages", {
@@ -95,3 +135,37 @@ export async function markMessageAsRead(messageId) {
   }
 }
 
+// Marks many messages read in one request; returns the number updated.
+export async function markMessagesAsRead(messageIds) {
+  try {
+    const res = await fetch("/api/messages/read", {
+      method: "PUT",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify({ ids: messageIds })
+    });
+    if (!res.ok) {
+      return { error: "Failed to mark messages as read" };
+    }
+    return await res.json();
+  } catch (e) {
+    console.error("Failed to mark messages as read:", e);
+    return { error: "Failed to mark messages as read" };
+  }
+}
+
+export async function deleteMessages(messageIds) {
+  try {
+    const res = await fetch("/api/messages/delete", {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify({ ids: messageIds })
+    });
+    if (!res.ok) {
+      return { error: "Failed to delete messages" };
+    }
+    return await res.json();
+  } catch (e) {
+    console.error("Failed to delete messages:", e);
+    return { error: "Failed to delete messages" };
+  }
+}
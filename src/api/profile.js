@@ -1,8 +1,13 @@
 import { toast } from "../hooks/use-toast";
 
+function authHeaders() {
+  const token = localStorage.getItem('token');
+  return token ? { Authorization: `Bearer ${token}` } : {};
+}
+
 export async function getProfile() {
   try {
-    const res = await fetch('/api/user/profile');
+    const res = await fetch('/api/user/profile', { headers: authHeaders() });
     if (!res.ok) {
       const msg = await res.text();
       toast && toast.error ? toast.error(msg) : null;
@@ -19,7 +24,7 @@ export async function updateProfile(profile) {
   try {
     const res = await fetch('/api/user/profile', {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify(profile),
     });
     if (!res.ok) {
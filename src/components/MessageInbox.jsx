@@ -8,7 +8,7 @@ import { Badge } from "@/components/ui/badge";
 import { ScrollArea } from "@/components/ui/scroll-area";
 import { X, Send, MessageSquare, User, Clock } from "lucide-react";
 import { useAuth } from "../context/AuthContext";
-import { getMessages, sendMessage, markMessageAsRead, getMessagesByReceiver, getMessagesBySender } from "../api/messages";
+import { getMessages, sendMessage, markMessageAsRead, getMessagesByReceiver, getMessagesBySender, subscribeToMessages } from "../api/messages";
 
 export const MessageInbox = ({ onClose }) => {
   const { user } = useAuth();
@@ -23,6 +23,14 @@ export const MessageInbox = ({ onClose }) => {
     fetchMessages();
   }, []);
 
+  // New messages are pushed by the server instead of re-fetching the inbox
+  useEffect(() => {
+    if (!user?.id) return;
+    return subscribeToMessages(user.id, user.role, (msg) => {
+      setMessages((prev) => (prev.some((m) => m.id === msg.id) ? prev : [msg, ...prev]));
+    });
+  }, [user?.id, user?.role]);
+
   const fetchMessages = async () => {
     try {
       const role = user?.role || 'customer';
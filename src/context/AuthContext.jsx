@@ -91,6 +91,10 @@ export function AuthProvider({ children }) {
   };
 
   const logout = () => {
+    const stored = localStorage.getItem('token');
+    if (stored) {
+      fetch('/api/auth/logout', { method: 'POST', headers: { Authorization: `Bearer ${stored}` } }).catch(() => {});
+    }
     setUser(null);
     setToken(null);
     localStorage.removeItem('token');
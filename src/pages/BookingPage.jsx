@@ -80,7 +80,7 @@ const BookingPage = () => {
               <ul>
               {bookings.map((b) => (
                 <li key={b.id} className="mb-2 p-2 border-b">
-                  Booking #{b.id}: Car {b.carId} from {b.startDate} to {b.endDate}
+                  Booking #{b.id}: Car {b.carId} from {new Date(b.startDate).toLocaleDateString()} to {new Date(b.endDate).toLocaleDateString()}
                 </li>
               ))}
               </ul>
@@ -1,6 +1,6 @@
 import { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
-import { getAllCars } from "../api/cars";
+import { searchCars } from "../api/cars";
 import { motion } from "framer-motion";
 import { Car, Filter, MapPin, Star, Heart } from "lucide-react";
 import { Button } from "@/components/ui/button";
@@ -8,21 +8,34 @@ import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/com
 import { Badge } from "@/components/ui/badge";
 import { Navbar } from "@/components/ui/navbar";
 
+// Cars are fetched from the server-side search a page at a time instead of the whole fleet
+const PAGE_SIZE = 24;
+
 const CarsPage = () => {
   const navigate = useNavigate();
   const [selectedCategory, setSelectedCategory] = useState("rent");
   const [filters, setFilters] = useState({ category: "all", location: "all" });
   const [cars, setCars] = useState([]);
+  const [page, setPage] = useState(0);
+  const [total, setTotal] = useState(0);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState("");
 
   useEffect(() => {
-    setLoading(true);
-    getAllCars()
-      .then(setCars)
+    setLoadingMore(true);
+    searchCars({ page, size: PAGE_SIZE })
+      .then((result) => {
+        const items = result.items || [];
+        setTotal(result.total || 0);
+        setCars((prev) => (page === 0 ? items : [...prev, ...items]));
+      })
       .catch((err) => setError(err.message || "Could not load cars."))
-      .finally(() => setLoading(false));
-  }, []);
+      .finally(() => {
+        setLoading(false);
+        setLoadingMore(false);
+      });
+  }, [page]);
 
   const categories = [
     { id: "rent", label: "For Rent", icon: Car }
@@ -181,6 +194,13 @@ const CarsPage = () => {
                 </motion.div>
               ))}
           </div>
+          {cars.length < total && (
+            <div className="flex justify-center mt-10">
+              <Button variant="outline" disabled={loadingMore} onClick={() => setPage((p) => p + 1)}>
+                {loadingMore ? "Loading..." : "Load more cars"}
+              </Button>
+            </div>
+          )}
         </div>
       </section>
     </div>
@@ -23,12 +23,8 @@ const ProfilePage = () => {
   const [err, setErr] = useState("");
 
   useEffect(() => {
-    // On login or mount, try to sync profile with backend
+    // The backend opens the profile's session at login, keyed by the stored token
     fetchProfile();
-    // For DEMO ONLY: set backend profile on login, to match user
-    if (user) {
-      fetch("/api/user/setProfile", { method: "POST", headers: { "Content-Type": "application/json" }, body: JSON.stringify(user) })
-    }
     // eslint-disable-next-line
   }, [user]);
 